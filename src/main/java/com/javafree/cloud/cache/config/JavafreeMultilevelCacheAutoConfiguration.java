@@ -4,21 +4,38 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.Weigher;
 import com.javafree.cloud.cache.properties.CircuitBreakerProperties;
 import com.javafree.cloud.cache.properties.MultiLevelCacheProperties;
+import com.javafree.cloud.cache.serializer.CompressionStats;
 import com.javafree.cloud.cache.support.CacheEvictMessage;
+import com.javafree.cloud.cache.support.CacheEvictMessageSerializer;
+import com.javafree.cloud.cache.support.CompositeKeyGenerator;
 import com.javafree.cloud.cache.support.CustomKeyGenerator;
+import com.javafree.cloud.cache.support.HotKeysEndpoint;
 import com.javafree.cloud.cache.support.JavafreeMultiLevelCache;
 import com.javafree.cloud.cache.support.JavafreeMultiLevelCacheManager;
+import com.javafree.cloud.cache.support.OffHeapStore;
+import com.javafree.cloud.cache.support.TrackingInvalidationListener;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.BaseUnits;
 import io.micrometer.core.instrument.binder.MeterBinder;
 import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import java.time.Duration;
+import java.util.Collections;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
 import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
@@ -33,8 +50,11 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.Message;
 import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.listener.ChannelTopic;
 import org.springframework.data.redis.listener.RedisMessageListenerContainer;
@@ -97,37 +117,198 @@ public class JavafreeMultilevelCacheAutoConfiguration {
         return template;
     }
 
+    /**
+     * 删除通知消息的编解码器，旧格式消息交给 multiLevelCacheRedisTemplate 的值序列化工具解码
+     * @param cacheProperties
+     * @param multiLevelCacheRedisTemplate
+     * @return
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheEvictMessageSerializer multiLevelCacheEvictMessageSerializer(
+            MultiLevelCacheProperties cacheProperties,
+            RedisTemplate<Object, Object> multiLevelCacheRedisTemplate) {
+        return new CacheEvictMessageSerializer(
+                multiLevelCacheRedisTemplate.getValueSerializer(),
+                cacheProperties.getInvalidation().isBinaryFormat());
+    }
+
     /**
      * multiLevelCacheRedisTemplate 发送删除条目的消息
      * @param highLevelCacheProperties
      * @param cacheProperties
      * @param multiLevelCacheRedisTemplate
+     * @param evictMessageSerializer
+     * @param localCacheWeigher  自定义的本地缓存 Weigher，按内存容量限制本地缓存时使用
      * @return
      */
     @Bean
     public JavafreeMultiLevelCacheManager cacheManager(
             ObjectProvider<CacheProperties> highLevelCacheProperties,
             MultiLevelCacheProperties cacheProperties,
-            RedisTemplate<Object, Object> multiLevelCacheRedisTemplate) {
+            RedisTemplate<Object, Object> multiLevelCacheRedisTemplate,
+            CacheEvictMessageSerializer evictMessageSerializer,
+            ObjectProvider<Weigher<Object, Object>> localCacheWeigher) {
         CircuitBreaker circuitBreaker = cacheCircuitBreaker(cacheProperties);
         return new JavafreeMultiLevelCacheManager(
-                highLevelCacheProperties, cacheProperties, multiLevelCacheRedisTemplate, circuitBreaker);
+                highLevelCacheProperties,
+                cacheProperties,
+                multiLevelCacheRedisTemplate,
+                circuitBreaker,
+                evictMessageSerializer,
+                localCacheWeigher.getIfUnique());
     }
 
     /**
-     * 用于多级缓存的本地级别的缓存计绑定器
+     * 用于多级缓存的本地级别的缓存计绑定器，开启压缩时同时绑定 Redis 缓存值的压缩指标
      * @return
      */
     @Bean
     @ConditionalOnBean(JavafreeMultiLevelCacheManager.class)
     @ConditionalOnClass({MeterBinder.class, CacheMeterBinderProvider.class})
     public CacheMeterBinderProvider<JavafreeMultiLevelCache> multiLevelCacheCacheMeterBinderProvider() {
-        return (cache, tags) -> new CaffeineCacheMetrics(cache.getLocalCache(), cache.getName(), tags);
+        return (cache, tags) -> {
+            MeterBinder localMetrics = new CaffeineCacheMetrics<>(cache.getLocalCache(), cache.getName(), tags);
+            return registry -> {
+                localMetrics.bindTo(registry);
+                Tags cacheTags = Tags.of(tags).and("cache", cache.getName());
+                bindLocalWeightMetrics(registry, cache, cacheTags);
+                OffHeapStore offHeapStore = cache.getOffHeapStore();
+                if (offHeapStore != null) bindOffHeapMetrics(registry, offHeapStore, cacheTags);
+                CompressionStats compressionStats = cache.getCompressionStats();
+                if (compressionStats != null) bindCompressionMetrics(registry, compressionStats, cacheTags);
+            };
+        };
+    }
+
+    /**
+     * 本地缓存按内存容量限制时，绑定已使用和最大容量指标
+     * @param registry
+     * @param cache
+     * @param tags
+     */
+    private static void bindLocalWeightMetrics(MeterRegistry registry, JavafreeMultiLevelCache cache, Tags tags) {
+        cache.getLocalCache()
+                .policy()
+                .eviction()
+                .filter(Policy.Eviction::isWeighted)
+                .ifPresent(
+                        eviction -> {
+                            Gauge.builder(
+                                            "cache.local.weight",
+                                            eviction,
+                                            e -> e.weightedSize().orElse(0L))
+                                    .tags(tags)
+                                    .description("Weighted size of the local cache")
+                                    .baseUnit(BaseUnits.BYTES)
+                                    .register(registry);
+                            Gauge.builder("cache.local.max.weight", eviction, Policy.Eviction::getMaximum)
+                                    .tags(tags)
+                                    .description("Maximum weight of the local cache")
+                                    .baseUnit(BaseUnits.BYTES)
+                                    .register(registry);
+                        });
+    }
+
+    /**
+     * 绑定堆外缓存指标
+     * @param registry
+     * @param store
+     * @param tags
+     */
+    private static void bindOffHeapMetrics(MeterRegistry registry, OffHeapStore store, Tags tags) {
+        Gauge.builder("cache.offheap.size", store, OffHeapStore::size)
+                .tags(tags)
+                .description("The number of entries in the off-heap cache")
+                .register(registry);
+        Gauge.builder("cache.offheap.used", store, OffHeapStore::usedBytes)
+                .tags(tags)
+                .description("Off-heap memory used by the off-heap cache")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        Gauge.builder("cache.offheap.capacity", store, OffHeapStore::capacity)
+                .tags(tags)
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        FunctionCounter.builder("cache.offheap.gets", store, OffHeapStore::hitCount)
+                .tags(tags)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.offheap.gets", store, OffHeapStore::missCount)
+                .tags(tags)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.offheap.evictions", store, OffHeapStore::evictionCount)
+                .tags(tags)
+                .register(registry);
+    }
+
+    /**
+     * 绑定 Redis 缓存值的压缩指标
+     * @param registry
+     * @param stats
+     * @param tags
+     */
+    private static void bindCompressionMetrics(MeterRegistry registry, CompressionStats stats, Tags tags) {
+        Gauge.builder("cache.compression.ratio", stats, CompressionStats::compressionRatio)
+                .tags(tags)
+                .description("Bytes written to Redis divided by serialized bytes of compressed values")
+                .register(registry);
+        FunctionCounter.builder("cache.compression.bytes", stats, CompressionStats::uncompressedBytes)
+                .tags(tags)
+                .tag("stage", "uncompressed")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        FunctionCounter.builder("cache.compression.bytes", stats, CompressionStats::compressedBytes)
+                .tags(tags)
+                .tag("stage", "compressed")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        FunctionTimer.builder(
+                        "cache.compression.time",
+                        stats,
+                        CompressionStats::compressionCount,
+                        CompressionStats::compressNanos,
+                        TimeUnit.NANOSECONDS)
+                .tags(tags)
+                .tag("operation", "compress")
+                .register(registry);
+        FunctionTimer.builder(
+                        "cache.compression.time",
+                        stats,
+                        CompressionStats::decompressionCount,
+                        CompressionStats::decompressNanos,
+                        TimeUnit.NANOSECONDS)
+                .tags(tags)
+                .tag("operation", "decompress")
+                .register(registry);
+    }
+
+    /**
+     * 查看各缓存当前热点 key 的 actuator 端点
+     * @param cacheManager
+     * @return
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnAvailableEndpoint
+    public HotKeysEndpoint multiLevelCacheHotKeysEndpoint(JavafreeMultiLevelCacheManager cacheManager) {
+        return new HotKeysEndpoint(cacheManager);
     }
 
     @Bean("customKeyGenerator")
-    public KeyGenerator keyGenerator() {
-        return new CustomKeyGenerator();
+    public KeyGenerator keyGenerator(MultiLevelCacheProperties cacheProperties) {
+        return new CustomKeyGenerator(cacheProperties.getKeyHash());
+    }
+
+    /**
+     * 返回生成组合 key 对象的 keyGenerator，Redis 键与 customKeyGenerator 相同
+     * @param cacheProperties
+     * @return
+     */
+    @Bean("compositeKeyGenerator")
+    public KeyGenerator compositeKeyGenerator(MultiLevelCacheProperties cacheProperties) {
+        return new CompositeKeyGenerator(new CustomKeyGenerator(cacheProperties.getKeyHash()));
     }
 
 
@@ -135,6 +316,7 @@ public class JavafreeMultilevelCacheAutoConfiguration {
      * 返回Redis 主题监听器，用来协调条目删除
      * @param cacheProperties
      * @param multiLevelCacheRedisTemplate
+     * @param evictMessageSerializer
      * @param cacheManager
      * @return
      */
@@ -142,16 +324,38 @@ public class JavafreeMultilevelCacheAutoConfiguration {
     public RedisMessageListenerContainer multiLevelCacheRedisMessageListenerContainer(
             MultiLevelCacheProperties cacheProperties,
             RedisTemplate<Object, Object> multiLevelCacheRedisTemplate,
+            CacheEvictMessageSerializer evictMessageSerializer,
             JavafreeMultiLevelCacheManager cacheManager) {
         RedisMessageListenerContainer container = new RedisMessageListenerContainer();
         container.setConnectionFactory(
                 Objects.requireNonNull(multiLevelCacheRedisTemplate.getConnectionFactory()));
         container.addMessageListener(
-                createMessageListener(multiLevelCacheRedisTemplate, cacheManager),
+                createMessageListener(evictMessageSerializer, cacheManager),
                 new ChannelTopic(cacheProperties.getTopic()));
         return container;
     }
 
+    /**
+     * 返回 Redis 客户端缓存推送的删除通知监听器，invalidation.transport 为 TRACKING 时创建
+     * @param multiLevelCacheRedisTemplate
+     * @param cacheManager
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(
+            prefix = "spring.cache.multilevel.invalidation",
+            name = "transport",
+            havingValue = "tracking")
+    public TrackingInvalidationListener multiLevelCacheTrackingInvalidationListener(
+            RedisTemplate<Object, Object> multiLevelCacheRedisTemplate,
+            JavafreeMultiLevelCacheManager cacheManager) {
+        RedisConnectionFactory connectionFactory = multiLevelCacheRedisTemplate.getConnectionFactory();
+        if (!(connectionFactory instanceof LettuceConnectionFactory)) {
+            throw new IllegalStateException("Client tracking invalidation requires the Lettuce Redis client");
+        }
+        return new TrackingInvalidationListener((LettuceConnectionFactory) connectionFactory, cacheManager);
+    }
+
     /**
      * 用于处理 Redis 连接异常和回退以使用本地缓存的断路器
      * @param cacheProperties
@@ -221,20 +425,39 @@ public class JavafreeMultilevelCacheAutoConfiguration {
 
     /**
      * Redis 主题消息侦听器,用来协调条目删除
-     * @param multiLevelCacheRedisTemplate
+     * 本节点发出的消息直接忽略；其他节点发出的消息只删除本地缓存，Redis 中的键已由发送方删除
+     * @param evictMessageSerializer
      * @param cacheManager
      * @return
      */
     private static MessageListener createMessageListener(
-            RedisTemplate<Object, Object> multiLevelCacheRedisTemplate,
+            CacheEvictMessageSerializer evictMessageSerializer,
             JavafreeMultiLevelCacheManager cacheManager) {
-        return (message, pattern) -> {
+        MessageListener evictListener = (message, pattern) -> {
             try {
-                CacheEvictMessage request =
-                        (CacheEvictMessage)
-                                multiLevelCacheRedisTemplate.getValueSerializer().deserialize(message.getBody());
+                CacheEvictMessage request = evictMessageSerializer.deserialize(message.getBody());
 
                 if (request == null) return;
+                if (cacheManager.getNodeId().equals(request.getOrigin())) {
+                    log.trace("Ignored Redis message sent by this node");
+                    return;
+                }
+
+                if (request.getEntryKeys() != null) {
+                    request.getEntryKeys()
+                            .forEach(
+                                    (batchCacheName, entryKeys) -> {
+                                        JavafreeMultiLevelCache cache =
+                                                (JavafreeMultiLevelCache) cacheManager.getCache(batchCacheName);
+                                        if (cache == null || entryKeys == null) return;
+                                        log.trace(
+                                                "Received Redis message to evict {} keys from cache {}",
+                                                entryKeys.size(),
+                                                batchCacheName);
+                                        cache.localEvictAll(entryKeys);
+                                    });
+                    return;
+                }
 
                 String cacheName = request.getCacheName();
                 String entryKey = request.getEntryKey();
@@ -245,8 +468,9 @@ public class JavafreeMultilevelCacheAutoConfiguration {
 
                 if (cache == null) return;
                 log.trace("Received Redis message to evict key {} from cache {}", entryKey, cacheName);
-                if (entryKey == null) cache.localClear();
-                else cache.localEvict(entryKey);
+                if (request.getGeneration() != null) cache.localAdvanceGeneration(request.getGeneration());
+                else if (entryKey == null) cache.localInvalidateAll();
+                else cache.localEvictAll(Collections.singletonList(entryKey));
             } catch (ClassCastException e) {
                 log.error(
                         "Cannot cast cache instance returned by cache manager to "
@@ -256,6 +480,31 @@ public class JavafreeMultilevelCacheAutoConfiguration {
                 log.debug("Unknown Redis message", e);
             }
         };
+        return new ResubscribingMessageListener(evictListener, cacheManager);
+    }
+
+    /**
+     * 订阅 topic 后回调的删除通知监听器
+     * 订阅连接断开重连后重新订阅，断开期间可能错过了代际通知，按代际清空的缓存重新读取代际号
+     */
+    private static class ResubscribingMessageListener implements MessageListener, SubscriptionListener {
+        private final MessageListener delegate;
+        private final JavafreeMultiLevelCacheManager cacheManager;
+
+        ResubscribingMessageListener(MessageListener delegate, JavafreeMultiLevelCacheManager cacheManager) {
+            this.delegate = delegate;
+            this.cacheManager = cacheManager;
+        }
+
+        @Override
+        public void onMessage(Message message, byte[] pattern) {
+            delegate.onMessage(message, pattern);
+        }
+
+        @Override
+        public void onChannelSubscribed(byte[] channel, long count) {
+            cacheManager.syncGenerations();
+        }
     }
 
 }
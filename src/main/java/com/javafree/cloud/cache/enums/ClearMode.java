@@ -0,0 +1,25 @@
+package com.javafree.cloud.cache.enums;
+
+/**
+ * @version V1.0
+ * @Description: 清空缓存时 Redis 中键的处理方式
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/26 10:20
+ */
+
+public enum ClearMode {
+    /**
+     * 通过 SCAN 分批查找缓存的键并用 UNLINK 删除，耗时与键的数量成正比
+     */
+    DELETE("删除"),
+    /**
+     * Redis 键中带有缓存的代际号，清空时只递增代际计数器，旧代际的键不再被访问，由过期时间删除
+     */
+    GENERATION("代际");
+
+    private String label;
+
+    ClearMode(String label) {
+        this.label = label;
+    }
+}
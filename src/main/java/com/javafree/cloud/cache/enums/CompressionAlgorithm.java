@@ -0,0 +1,49 @@
+package com.javafree.cloud.cache.enums;
+
+/**
+ * @version V1.0
+ * @Description: Redis 缓存值的压缩算法
+ * LZ4 需要引入 lz4-java 依赖，ZSTD 需要引入 zstd-jni 依赖
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/17 9:30
+ */
+
+public enum CompressionAlgorithm {
+    /**
+     * JDK 自带的 Deflate，不需要额外依赖
+     */
+    DEFLATE((byte) 1, "JDK Deflate"),
+    /**
+     * LZ4，压缩率较低，速度最快
+     */
+    LZ4((byte) 2, "LZ4"),
+    /**
+     * Zstandard，压缩率较高，速度较快
+     */
+    ZSTD((byte) 3, "Zstandard");
+
+    /** 写入压缩数据头部的算法编号，不能修改 */
+    private final byte id;
+    private String label;
+
+    CompressionAlgorithm(byte id, String label) {
+        this.id = id;
+        this.label = label;
+    }
+
+    public byte getId() {
+        return id;
+    }
+
+    /**
+     * 根据压缩数据头部的算法编号返回算法
+     * @param id
+     * @return  未知编号时为 null
+     */
+    public static CompressionAlgorithm of(byte id) {
+        for (CompressionAlgorithm algorithm : values()) {
+            if (algorithm.id == id) return algorithm;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.javafree.cloud.cache.enums;
+
+/**
+ * @version V1.0
+ * @Description: 本地缓存删除通知的传递方式
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/25 9:10
+ */
+
+public enum InvalidationTransport {
+    /**
+     * 写入节点向 topic 发布删除通知，其他节点订阅后删除本地缓存
+     */
+    PUBSUB("发布订阅"),
+    /**
+     * Redis 6 客户端缓存（RESP3 CLIENT TRACKING BCAST），键被修改或过期时由 Redis 推送删除通知，节点之间不再发布消息
+     */
+    TRACKING("服务端推送");
+
+    private String label;
+
+    InvalidationTransport(String label) {
+        this.label = label;
+    }
+}
@@ -0,0 +1,25 @@
+package com.javafree.cloud.cache.enums;
+
+/**
+ * @version V1.0
+ * @Description: customKeyGenerator 生成缓存 key 时对方法参数取指纹码的算法
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/23 10:15
+ */
+
+public enum KeyHashAlgorithm {
+    /**
+     * 参数转为 JSON 字符串后取 MD5，与之前版本生成的 key 相同
+     */
+    MD5("MD5 指纹码"),
+    /**
+     * 简单类型的参数直接格式化，其余参数转为 JSON，再取 128 位 MurmurHash3，速度快，生成的 key 与 MD5 不同
+     */
+    MURMUR3_128("128 位 MurmurHash3 指纹码");
+
+    private String label;
+
+    KeyHashAlgorithm(String label) {
+        this.label = label;
+    }
+}
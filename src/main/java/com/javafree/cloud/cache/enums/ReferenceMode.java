@@ -0,0 +1,29 @@
+package com.javafree.cloud.cache.enums;
+
+/**
+ * @version V1.0
+ * @Description: 本地缓存值的引用方式
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/22 9:10
+ */
+
+public enum ReferenceMode {
+    /**
+     * 强引用，只按容量和过期时间驱逐，缓存大小和命中率可预测
+     */
+    STRONG("强引用"),
+    /**
+     * 软引用，内存不足时由垃圾收集器按全局 LRU 回收，回收时机不可预测，会增加 GC 停顿
+     */
+    SOFT("软引用"),
+    /**
+     * 弱引用，值没有其他强引用时即可被回收
+     */
+    WEAK("弱引用");
+
+    private String label;
+
+    ReferenceMode(String label) {
+        this.label = label;
+    }
+}
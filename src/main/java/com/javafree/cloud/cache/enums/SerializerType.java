@@ -0,0 +1,34 @@
+package com.javafree.cloud.cache.enums;
+
+/**
+ * @version V1.0
+ * @Description: Redis 缓存值的序列化格式
+ * SMILE、CBOR 需要引入对应的 jackson-dataformat 依赖，KRYO 需要引入 kryo 依赖
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/16 9:40
+ */
+
+public enum SerializerType {
+    /**
+     * Jackson JSON，带类型信息，可读性好，默认值
+     */
+    JSON("Jackson JSON"),
+    /**
+     * Jackson Smile 二进制 JSON，带类型信息
+     */
+    SMILE("Jackson Smile 二进制格式"),
+    /**
+     * Jackson CBOR 二进制格式，带类型信息
+     */
+    CBOR("Jackson CBOR 二进制格式"),
+    /**
+     * Kryo 二进制格式，注册过的类只写入类编号
+     */
+    KRYO("Kryo 二进制格式");
+
+    private String label;
+
+    SerializerType(String label) {
+        this.label = label;
+    }
+}
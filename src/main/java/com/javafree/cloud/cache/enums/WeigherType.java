@@ -0,0 +1,25 @@
+package com.javafree.cloud.cache.enums;
+
+/**
+ * @version V1.0
+ * @Description: 本地缓存按内存容量限制时计算条目大小的方式
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/19 9:30
+ */
+
+public enum WeigherType {
+    /**
+     * 遍历对象字段估算占用的堆内存，速度较快，结果为近似值
+     */
+    ESTIMATED("估算对象占用的内存"),
+    /**
+     * 使用缓存值的序列化工具序列化后的字节数，结果稳定，写入本地缓存时有序列化开销
+     */
+    SERIALIZED("序列化后的字节数");
+
+    private String label;
+
+    WeigherType(String label) {
+        this.label = label;
+    }
+}
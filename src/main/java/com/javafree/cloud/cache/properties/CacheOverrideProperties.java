@@ -0,0 +1,60 @@
+package com.javafree.cloud.cache.properties;
+
+import com.javafree.cloud.cache.enums.SerializerType;
+import lombok.Data;
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
+
+import java.time.Duration;
+
+/**
+ * @version V1.0
+ * @Description: 单个缓存的配置，未设置（null）的项使用全局配置
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/16 10:05
+ */
+@Data
+public class CacheOverrideProperties {
+  /** redis 缓存对象存活时间 */
+  private Duration timeToLive;
+
+  /** 是否存储空值 */
+  private Boolean allowNullValues;
+
+  /** 缓存值的序列化格式 */
+  private SerializerType serializer;
+
+  /** 本地缓存设置部分 */
+  @NestedConfigurationProperty
+  private LocalCacheOverrideProperties local = new LocalCacheOverrideProperties();
+
+  /** 后台刷新设置部分 */
+  @NestedConfigurationProperty
+  private RefreshOverrideProperties refresh = new RefreshOverrideProperties();
+
+  /** 集群范围加载锁设置部分 */
+  @NestedConfigurationProperty
+  private DistributedLockOverrideProperties distributedLock = new DistributedLockOverrideProperties();
+
+  /** 堆外缓存设置部分 */
+  @NestedConfigurationProperty
+  private OffHeapOverrideProperties offHeap = new OffHeapOverrideProperties();
+
+  /** 热点 key 识别设置部分 */
+  @NestedConfigurationProperty
+  private HotKeyOverrideProperties hotKey = new HotKeyOverrideProperties();
+
+  /**
+   * 把已设置的项写入 properties
+   * @param properties  全局配置的副本，其中的嵌套配置也是副本
+   */
+  void applyTo(MultiLevelCacheProperties properties) {
+    if (timeToLive != null) properties.setTimeToLive(timeToLive);
+    if (allowNullValues != null) properties.setAllowNullValues(allowNullValues);
+    if (serializer != null) properties.setSerializer(serializer);
+    if (local != null) local.applyTo(properties.getLocal());
+    if (refresh != null) refresh.applyTo(properties.getRefresh());
+    if (distributedLock != null) distributedLock.applyTo(properties.getDistributedLock());
+    if (offHeap != null) offHeap.applyTo(properties.getOffHeap());
+    if (hotKey != null) hotKey.applyTo(properties.getHotKey());
+  }
+}
@@ -0,0 +1,32 @@
+package com.javafree.cloud.cache.properties;
+
+import com.javafree.cloud.cache.enums.ClearMode;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * @version V1.0
+ * @Description: 清空缓存相关参数配置
+ * clear/invalidate 由发起的节点通过 SCAN 分批查找缓存的键并用 UNLINK 删除，不使用会阻塞 Redis 的 KEYS 命令
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/25 9:40
+ */
+@Data
+public class ClearProperties {
+  /**
+   * 清空方式，默认 DELETE
+   * GENERATION 的清空为 O(1)，但 Redis 键的格式改变，切换后原有的 Redis 缓存不再命中；
+   * 旧代际的键只能依靠过期时间删除，time-to-live 必须大于0
+   */
+  private ClearMode mode = ClearMode.DELETE;
+
+  /** 每批扫描（SCAN COUNT）和删除（UNLINK）的键数量，默认1000，mode 为 DELETE 时有效 */
+  private int batchSize = 1000;
+
+  /**
+   * 从 Redis 重新读取代际计数器的间隔，默认30秒，mode 为 GENERATION 时有效
+   * 删除通知订阅重连和断路器恢复时也会重新读取；错过代际通知的节点最迟经过该间隔改用新的代际，0 表示不定期读取
+   */
+  private Duration generationSyncInterval = Duration.ofSeconds(30);
+}
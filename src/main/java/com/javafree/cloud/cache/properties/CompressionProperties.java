@@ -0,0 +1,27 @@
+package com.javafree.cloud.cache.properties;
+
+import com.javafree.cloud.cache.enums.CompressionAlgorithm;
+import lombok.Data;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * @version V1.0
+ * @Description: Redis 缓存值压缩相关参数配置
+ * 序列化后超过阈值的值压缩后写入 Redis，压缩数据带有头部标记，未压缩的旧数据仍然可以读取
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/17 9:45
+ */
+@Data
+public class CompressionProperties {
+  /** 是否开启压缩，默认关闭 */
+  private boolean enabled = false;
+
+  /** 压缩算法，默认 DEFLATE */
+  private CompressionAlgorithm algorithm = CompressionAlgorithm.DEFLATE;
+
+  /** 序列化后达到此大小的值才压缩 */
+  private DataSize threshold = DataSize.ofKilobytes(4);
+
+  /** 压缩级别，-1 使用算法的默认级别，LZ4 忽略此项 */
+  private int level = -1;
+}
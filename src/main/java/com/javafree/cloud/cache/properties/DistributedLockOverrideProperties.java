@@ -0,0 +1,37 @@
+package com.javafree.cloud.cache.properties;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * @version V1.0
+ * @Description: 单个缓存的集群范围加载锁配置，未设置（null）的项使用全局 {@link DistributedLockProperties}
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/29 9:30
+ */
+@Data
+public class DistributedLockOverrideProperties {
+  /** 是否在调用 valueLoader 前获取 Redis 分布式锁 */
+  private Boolean enabled;
+
+  /** 锁的自动过期时间 */
+  private Duration leaseTime;
+
+  /** 未获得锁的节点等待其他节点写入 Redis 的最长时间 */
+  private Duration waitTime;
+
+  /** 未获得锁的节点轮询 Redis 的间隔 */
+  private Duration retryInterval;
+
+  /**
+   * 把已设置的项写入 distributedLock
+   * @param distributedLock  全局配置的副本
+   */
+  void applyTo(DistributedLockProperties distributedLock) {
+    if (enabled != null) distributedLock.setEnabled(enabled);
+    if (leaseTime != null) distributedLock.setLeaseTime(leaseTime);
+    if (waitTime != null) distributedLock.setWaitTime(waitTime);
+    if (retryInterval != null) distributedLock.setRetryInterval(retryInterval);
+  }
+}
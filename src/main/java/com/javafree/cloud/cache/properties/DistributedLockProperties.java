@@ -0,0 +1,27 @@
+package com.javafree.cloud.cache.properties;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * @version V1.0
+ * @Description: 集群范围加载锁相关参数配置
+ * 开启后同一个键在整个集群中只有一个节点调用 valueLoader，其他节点等待后从 Redis 读取
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/9 10:12
+ */
+@Data
+public class DistributedLockProperties {
+  /** 是否在调用 valueLoader 前获取 Redis 分布式锁，默认关闭 */
+  private boolean enabled = false;
+
+  /** 锁的自动过期时间，应大于 valueLoader 的最长执行时间，防止节点宕机后锁无法释放 */
+  private Duration leaseTime = Duration.ofSeconds(10);
+
+  /** 未获得锁的节点等待其他节点写入 Redis 的最长时间，超时后在本地加载 */
+  private Duration waitTime = Duration.ofSeconds(2);
+
+  /** 未获得锁的节点轮询 Redis 的间隔 */
+  private Duration retryInterval = Duration.ofMillis(50);
+}
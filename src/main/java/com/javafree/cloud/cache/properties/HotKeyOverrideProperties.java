@@ -0,0 +1,45 @@
+package com.javafree.cloud.cache.properties;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * @version V1.0
+ * @Description: 单个缓存的热点 key 识别配置，未设置（null）的项使用全局 {@link HotKeyProperties}
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/29 9:30
+ */
+@Data
+public class HotKeyOverrideProperties {
+  /** 是否开启热点 key 识别 */
+  private Boolean enabled;
+
+  /** 一个统计窗口内访问次数达到该值的键识别为热点 key */
+  private Integer threshold;
+
+  /** 统计窗口 */
+  private Duration window;
+
+  /** 最多的热点 key 数量 */
+  private Integer maxKeys;
+
+  /** 热点 key 的值超过该时间后，读取时在后台从 Redis 刷新 */
+  private Duration refreshAfter;
+
+  /** 频率统计每行的计数器数量 */
+  private Integer sketchWidth;
+
+  /**
+   * 把已设置的项写入 hotKey
+   * @param hotKey  全局配置的副本
+   */
+  void applyTo(HotKeyProperties hotKey) {
+    if (enabled != null) hotKey.setEnabled(enabled);
+    if (threshold != null) hotKey.setThreshold(threshold);
+    if (window != null) hotKey.setWindow(window);
+    if (maxKeys != null) hotKey.setMaxKeys(maxKeys);
+    if (refreshAfter != null) hotKey.setRefreshAfter(refreshAfter);
+    if (sketchWidth != null) hotKey.setSketchWidth(sketchWidth);
+  }
+}
@@ -0,0 +1,34 @@
+package com.javafree.cloud.cache.properties;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * @version V1.0
+ * @Description: 热点 key 识别相关参数配置
+ * 读取时用 Count-Min Sketch 统计每个键的访问频率，频率达到阈值的键被识别为热点 key，
+ * 热点 key 的值固定在本地（不随 Caffeine 过期或驱逐），并在后台提前从 Redis 刷新
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/24 9:30
+ */
+@Data
+public class HotKeyProperties {
+  /** 是否开启热点 key 识别，默认关闭 */
+  private boolean enabled = false;
+
+  /** 一个统计窗口内访问次数达到该值的键识别为热点 key */
+  private int threshold = 1000;
+
+  /** 统计窗口，每个窗口结束时所有计数减半，频率低于阈值一半的热点 key 被取消 */
+  private Duration window = Duration.ofSeconds(10);
+
+  /** 每个缓存最多的热点 key 数量 */
+  private int maxKeys = 100;
+
+  /** 热点 key 的值超过该时间后，读取时在后台从 Redis 刷新 */
+  private Duration refreshAfter = Duration.ofSeconds(30);
+
+  /** 频率统计每行的计数器数量，向上取整为 2 的幂，越大误差越小，每个缓存占用 4 * 4 * sketchWidth 字节 */
+  private int sketchWidth = 1024;
+}
@@ -0,0 +1,37 @@
+package com.javafree.cloud.cache.properties;
+
+import com.javafree.cloud.cache.enums.InvalidationTransport;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * @version V1.0
+ * @Description: 删除通知消息相关参数配置
+ * 时间窗口内各缓存的删除通知合并为一条批量消息发送，减少 topic 上的消息数量
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/12 10:05
+ */
+@Data
+public class InvalidationProperties {
+  /**
+   * 删除通知的传递方式，默认 PUBSUB
+   * TRACKING 需要 Redis 6 以上的单机 Redis 和 Lettuce 客户端，由 Redis 推送删除通知，不再发布消息，
+   * 本节点自己的写入也会收到推送，写入后的第一次读取会回到 Redis
+   */
+  private InvalidationTransport transport = InvalidationTransport.PUBSUB;
+
+  /** 删除通知合并的时间窗口，默认0即每次删除立即发送 */
+  private Duration window = Duration.ZERO;
+
+  /** 一条批量消息中最多包含的键数量，达到后立即发送 */
+  private int maxBatchSize = 500;
+
+  /**
+   * 是否以二进制格式发送删除通知，默认true
+   * 接收时两种格式都能解码，集群中还有只能解析 JSON 消息的旧版本节点时设置为false。
+   * JSON 消息与旧版本格式相同：不带来源节点标识，本节点收到自己的删除通知时也会删除本地缓存；
+   * 批量删除拆分为单个键的消息。按代际清空（clear.mode=GENERATION）的消息旧版本节点不能解析
+   */
+  private boolean binaryFormat = true;
+}
@@ -0,0 +1,24 @@
+package com.javafree.cloud.cache.properties;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @version V1.0
+ * @Description: Kryo 序列化相关参数配置，serializer 为 KRYO 时有效
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/16 9:50
+ */
+@Data
+public class KryoProperties {
+  /**
+   * 预先注册的类全名，注册过的类在数据中只写入类编号
+   * 类编号按列表顺序分配，共用同一个 Redis 的所有节点必须配置相同的列表和顺序
+   */
+  private List<String> registeredClasses = new ArrayList<>();
+
+  /** 是否只允许序列化注册过的类，默认false，未注册的类写入类全名 */
+  private boolean registrationRequired = false;
+}
@@ -0,0 +1,61 @@
+package com.javafree.cloud.cache.properties;
+
+import com.javafree.cloud.cache.enums.ExpireMode;
+import com.javafree.cloud.cache.enums.ReferenceMode;
+import com.javafree.cloud.cache.enums.WeigherType;
+import lombok.Data;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * @version V1.0
+ * @Description: 单个缓存的本地Caffeine 配置，未设置（null）的项使用全局 {@link LocalCacheProperties}
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/18 9:20
+ */
+@Data
+public class LocalCacheOverrideProperties {
+  /** 最大缓存对象个数 */
+  private Integer maxSize;
+
+  /** 本地缓存的内存容量 */
+  private DataSize maxWeight;
+
+  /** 按内存容量限制时计算条目大小的方式 */
+  private WeigherType weigher;
+
+  /** 缓存值的引用方式 */
+  private ReferenceMode referenceMode;
+
+  /** 本地缓存条目过期的时间偏差百分比 */
+  private Integer expiryJitter;
+
+  /** 初始的缓存空间大小 */
+  private Integer initialCapacity;
+
+  /** 缓存失效模式 */
+  private ExpireMode expireMode;
+
+  /** 最后一次写入或访问后经过固定时间过期 */
+  private Duration expireAfterAccess;
+
+  /** 最后一次写入后经过固定时间过期 */
+  private Duration expireAfterWrite;
+
+  /**
+   * 把已设置的项写入 local
+   * @param local  全局配置的副本
+   */
+  void applyTo(LocalCacheProperties local) {
+    if (maxSize != null) local.setMaxSize(maxSize);
+    if (maxWeight != null) local.setMaxWeight(maxWeight);
+    if (weigher != null) local.setWeigher(weigher);
+    if (referenceMode != null) local.setReferenceMode(referenceMode);
+    if (expiryJitter != null) local.setExpiryJitter(expiryJitter);
+    if (initialCapacity != null) local.setInitialCapacity(initialCapacity);
+    if (expireMode != null) local.setExpireMode(expireMode);
+    if (expireAfterAccess != null) local.setExpireAfterAccess(expireAfterAccess);
+    if (expireAfterWrite != null) local.setExpireAfterWrite(expireAfterWrite);
+  }
+}
@@ -1,7 +1,10 @@
 package com.javafree.cloud.cache.properties;
 
 import com.javafree.cloud.cache.enums.ExpireMode;
+import com.javafree.cloud.cache.enums.ReferenceMode;
+import com.javafree.cloud.cache.enums.WeigherType;
 import lombok.Data;
+import org.springframework.util.unit.DataSize;
 
 import java.time.Duration;
 
@@ -16,6 +19,21 @@ public class LocalCacheProperties {
   /** 最大缓存对象个数，超过此数量时之前放入的缓存将失效 */
   private int maxSize = 4000;
 
+  /**
+   * 本地缓存的内存容量，默认不设置，按 maxSize 条目个数限制
+   * 设置后按条目大小（字节）限制，maxSize 不再生效
+   */
+  private DataSize maxWeight;
+
+  /** 按内存容量限制时计算条目大小的方式，默认 ESTIMATED */
+  private WeigherType weigher = WeigherType.ESTIMATED;
+
+  /**
+   * 缓存值的引用方式，默认 STRONG，只按容量和过期时间驱逐
+   * SOFT/WEAK 交给垃圾收集器回收，驱逐时机不可预测
+   */
+  private ReferenceMode referenceMode = ReferenceMode.STRONG;
+
   /**
    * 本地缓存条目过期的时间偏差百分比
    * MultiLevelCacheProperties.timeToLive(redis 缓存对象默认存活时间，单位小时)
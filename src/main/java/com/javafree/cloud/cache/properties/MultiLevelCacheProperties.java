@@ -1,19 +1,21 @@
 package com.javafree.cloud.cache.properties;
 
-import com.fasterxml.jackson.annotation.JsonAutoDetect;
-import com.fasterxml.jackson.annotation.JsonTypeInfo;
-import com.fasterxml.jackson.annotation.PropertyAccessor;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.javafree.cloud.cache.enums.KeyHashAlgorithm;
+import com.javafree.cloud.cache.enums.SerializerType;
+import com.javafree.cloud.cache.serializer.CompressingRedisSerializer;
+import com.javafree.cloud.cache.serializer.RedisValueSerializers;
 import lombok.Data;
+import org.springframework.beans.BeanUtils;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * @version V1.0
@@ -40,6 +42,35 @@ public class MultiLevelCacheProperties {
   /** 缓存更新时通知其他节点的 redis topic名称 */
   private String topic = "cache:multilevel:topic";
 
+  /**
+   * putIfAbsent/evictIfPresent 使用的分段锁数量，向上取整为 2 的幂，默认 64
+   * 分段越多不同键之间争用越少，每个缓存多占用相应数量的 ReentrantLock
+   */
+  private int lockStripes = 64;
+
+  /**
+   * customKeyGenerator 对方法参数取指纹码的算法，默认 MD5
+   * MURMUR3_128 速度更快，但生成的 key 与 MD5 不同，切换后原有的 Redis 缓存不再命中
+   */
+  private KeyHashAlgorithm keyHash = KeyHashAlgorithm.MD5;
+
+  /** 缓存值的序列化格式，默认 JSON */
+  private SerializerType serializer = SerializerType.JSON;
+
+  /** Kryo 序列化设置部分 */
+  @NestedConfigurationProperty
+  private KryoProperties kryo = new KryoProperties();
+
+  /** Redis 缓存值压缩设置部分 */
+  @NestedConfigurationProperty
+  private CompressionProperties compression = new CompressionProperties();
+
+  /** 堆外缓存设置部分 */
+  @NestedConfigurationProperty
+  private OffHeapProperties offHeap = new OffHeapProperties();
+
+  /** 单个缓存的设置，key 为缓存名称，未设置的项使用全局配置 */
+  private Map<String, CacheOverrideProperties> caches = new LinkedHashMap<>();
 
   /** 本地缓存设置部分 */
   @NestedConfigurationProperty
@@ -47,26 +78,114 @@ public class MultiLevelCacheProperties {
   @NestedConfigurationProperty
   private CircuitBreakerProperties circuitBreaker = new CircuitBreakerProperties();
 
+  /** 集群范围加载锁设置部分 */
+  @NestedConfigurationProperty
+  private DistributedLockProperties distributedLock = new DistributedLockProperties();
+
+  /** 后台刷新设置部分 */
+  @NestedConfigurationProperty
+  private RefreshProperties refresh = new RefreshProperties();
+
+  /** Redis 合并写入设置部分 */
+  @NestedConfigurationProperty
+  private WriteCoalescingProperties writeCoalescing = new WriteCoalescingProperties();
+
+  /** 热点 key 识别设置部分 */
+  @NestedConfigurationProperty
+  private HotKeyProperties hotKey = new HotKeyProperties();
+
+  /** 清空缓存设置部分 */
+  @NestedConfigurationProperty
+  private ClearProperties clear = new ClearProperties();
+
+  /** 删除通知消息设置部分 */
+  @NestedConfigurationProperty
+  private InvalidationProperties invalidation = new InvalidationProperties();
+
   public RedisCacheConfiguration toRedisCacheConfiguration() {
+    return toRedisCacheConfiguration(null);
+  }
+
+  /**
+   * 返回指定缓存生效的配置：全局配置的副本，再用 caches 中该缓存已设置的项覆盖
+   * @param cacheName  缓存名称
+   * @return  没有该缓存的单独设置时返回当前对象
+   */
+  public MultiLevelCacheProperties forCache(String cacheName) {
+    CacheOverrideProperties cache = cacheName == null ? null : caches.get(cacheName);
+    if (cache == null) return this;
+
+    MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+    BeanUtils.copyProperties(this, properties);
+    // 可以单独设置的嵌套配置需要复制，否则修改的是全局配置
+    properties.setLocal(copyOf(local, new LocalCacheProperties()));
+    properties.setRefresh(copyOf(refresh, new RefreshProperties()));
+    properties.setDistributedLock(copyOf(distributedLock, new DistributedLockProperties()));
+    properties.setOffHeap(copyOf(offHeap, new OffHeapProperties()));
+    properties.setHotKey(copyOf(hotKey, new HotKeyProperties()));
+    cache.applyTo(properties);
+    return properties;
+  }
+
+  private static <T> T copyOf(Object source, T target) {
+    BeanUtils.copyProperties(source, target);
+    return target;
+  }
+
+  /**
+   * 返回指定缓存的 Redis 缓存配置，单个缓存的设置优先于全局配置
+   * @param cacheName  缓存名称，为 null 时只使用全局配置
+   * @return
+   */
+  public RedisCacheConfiguration toRedisCacheConfiguration(String cacheName) {
+    return toRedisCacheConfiguration(cacheName, valueSerializerOf(cacheName));
+  }
+
+  /**
+   * 返回使用指定值序列化工具的 Redis 缓存配置
+   * @param cacheName  缓存名称，为 null 时只使用全局配置
+   * @param valueSerializer  值的序列化工具，一般由 {@link #valueSerializerOf(String)} 创建
+   * @return
+   */
+  public RedisCacheConfiguration toRedisCacheConfiguration(
+      String cacheName, RedisSerializer<Object> valueSerializer) {
 
+    MultiLevelCacheProperties cacheProperties = forCache(cacheName);
     StringRedisSerializer stringRedisSerializer = new StringRedisSerializer();
-    // 值的序列化工具
-    Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer<Object>(Object.class);
-    ObjectMapper om = new ObjectMapper();
-    om.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-    om.activateDefaultTyping(LaissezFaireSubTypeValidator.instance,ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.WRAPPER_ARRAY);
-    jackson2JsonRedisSerializer.setObjectMapper(om);
 
     RedisCacheConfiguration configuration =RedisCacheConfiguration.defaultCacheConfig()
            .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(stringRedisSerializer))
             //配置值的序列化工具
-           .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(jackson2JsonRedisSerializer))
-           .entryTtl(timeToLive);
+           .serializeValuesWith(
+                   RedisSerializationContext.SerializationPair.fromSerializer(valueSerializer))
+           .entryTtl(cacheProperties.getTimeToLive());
 
-    if(!allowNullValues) configuration.disableCachingNullValues();
-    if (useKeyPrefix) configuration.prefixCacheNameWith(keyPrefix);
+    // RedisCacheConfiguration 不可变，需要使用返回的新对象
+    if (!cacheProperties.isAllowNullValues()) configuration = configuration.disableCachingNullValues();
+    if (useKeyPrefix) configuration = configuration.prefixCacheNameWith(keyPrefix);
 
     return configuration;
   }
 
+  /**
+   * 创建指定缓存的值序列化工具，开启压缩时包装为 {@link CompressingRedisSerializer}
+   * @param cacheName
+   * @return
+   */
+  public RedisSerializer<Object> valueSerializerOf(String cacheName) {
+    RedisSerializer<Object> valueSerializer = RedisValueSerializers.create(serializerOf(cacheName), kryo);
+    return compression.isEnabled()
+        ? new CompressingRedisSerializer(valueSerializer, compression)
+        : valueSerializer;
+  }
+
+  /**
+   * 返回指定缓存的值序列化格式
+   * @param cacheName
+   * @return
+   */
+  public SerializerType serializerOf(String cacheName) {
+    return forCache(cacheName).getSerializer();
+  }
+
 }
@@ -0,0 +1,38 @@
+package com.javafree.cloud.cache.properties;
+
+import lombok.Data;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * @version V1.0
+ * @Description: 单个缓存的堆外缓存配置，未设置（null）的项使用全局 {@link OffHeapProperties}
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/29 9:30
+ */
+@Data
+public class OffHeapOverrideProperties {
+  /** 是否开启堆外缓存 */
+  private Boolean enabled;
+
+  /** 堆外内存容量 */
+  private DataSize capacity;
+
+  /** 存储块大小 */
+  private DataSize blockSize;
+
+  /** 堆外缓存条目的存活时间 */
+  private Duration timeToLive;
+
+  /**
+   * 把已设置的项写入 offHeap
+   * @param offHeap  全局配置的副本
+   */
+  void applyTo(OffHeapProperties offHeap) {
+    if (enabled != null) offHeap.setEnabled(enabled);
+    if (capacity != null) offHeap.setCapacity(capacity);
+    if (blockSize != null) offHeap.setBlockSize(blockSize);
+    if (timeToLive != null) offHeap.setTimeToLive(timeToLive);
+  }
+}
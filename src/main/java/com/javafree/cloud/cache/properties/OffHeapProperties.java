@@ -0,0 +1,32 @@
+package com.javafree.cloud.cache.properties;
+
+import lombok.Data;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * @version V1.0
+ * @Description: 堆外缓存相关参数配置
+ * 开启后每个缓存在本地Caffeine 与 Redis 之间增加一层堆外存储，保存 Redis 中读取的序列化数据，
+ * 本地缓存未命中时先读取堆外存储，不占用堆内存，不受 GC 回收影响
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/20 9:30
+ */
+@Data
+public class OffHeapProperties {
+  /** 是否开启堆外缓存，默认关闭 */
+  private boolean enabled = false;
+
+  /**
+   * 每个缓存的堆外内存容量，按需分配，超过后淘汰最久未使用的条目
+   * 存储按键分为最多 16 个分段（每段至少 64 个存储块），各分段平分容量，单个值不能超过一个分段的容量
+   */
+  private DataSize capacity = DataSize.ofMegabytes(64);
+
+  /** 存储块大小，每个条目占用整数个存储块 */
+  private DataSize blockSize = DataSize.ofBytes(512);
+
+  /** 堆外缓存条目的存活时间，实际不超过缓存的存活时间，本地缓存为 RANDOM 过期模式时也不超过本地条目最短的过期时间 */
+  private Duration timeToLive = Duration.ofMinutes(30);
+}
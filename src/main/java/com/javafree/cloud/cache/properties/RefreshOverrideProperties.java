@@ -0,0 +1,34 @@
+package com.javafree.cloud.cache.properties;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * @version V1.0
+ * @Description: 单个缓存的后台刷新配置，未设置（null）的项使用全局 {@link RefreshProperties}
+ * 刷新线程池由所有缓存共用，threads、queue-capacity 只能全局设置
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/29 9:30
+ */
+@Data
+public class RefreshOverrideProperties {
+  /** 是否开启提前刷新 */
+  private Boolean earlyEnabled;
+
+  /** 提前刷新系数 */
+  private Double beta;
+
+  /** 过期宽限期 */
+  private Duration staleGracePeriod;
+
+  /**
+   * 把已设置的项写入 refresh
+   * @param refresh  全局配置的副本
+   */
+  void applyTo(RefreshProperties refresh) {
+    if (earlyEnabled != null) refresh.setEarlyEnabled(earlyEnabled);
+    if (beta != null) refresh.setBeta(beta);
+    if (staleGracePeriod != null) refresh.setStaleGracePeriod(staleGracePeriod);
+  }
+}
@@ -0,0 +1,40 @@
+package com.javafree.cloud.cache.properties;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * @version V1.0
+ * @Description: 缓存后台刷新相关参数配置
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/10 9:20
+ */
+@Data
+public class RefreshProperties {
+  /**
+   * 是否开启提前刷新（XFetch 算法），默认关闭
+   * 本地缓存条目临近过期时，读取请求按概率触发后台从 Redis 重新读取，仍然返回当前值。
+   * 后台刷新不会重放调用方的加载方法（@Cacheable 方法或 valueLoader），它们可能依赖调用线程上的事务、安全上下文或请求作用域
+   */
+  private boolean earlyEnabled = false;
+
+  /**
+   * 提前刷新系数，大于1时更倾向于提前刷新，小于1时更倾向于推迟刷新
+   * 触发条件为 -加载耗时 * beta * ln(RNG(0, 1)) >= 剩余存活时间
+   */
+  private double beta = 1.0;
+
+  /**
+   * 过期宽限期，默认0不开启
+   * 本地缓存条目超过过期时间后在宽限期内仍然保留，读取时立即返回过期值并在后台从 Redis 刷新，
+   * Redis 中的值也已过期时删除本地的过期值，由下一次读取的调用方加载；Redis 不可用时保持读取延迟平稳
+   */
+  private Duration staleGracePeriod = Duration.ZERO;
+
+  /** 后台刷新线程数 */
+  private int threads = 2;
+
+  /** 后台刷新任务队列长度，队列满时放弃本次刷新 */
+  private int queueCapacity = 1000;
+}
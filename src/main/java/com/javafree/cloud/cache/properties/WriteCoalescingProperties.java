@@ -0,0 +1,24 @@
+package com.javafree.cloud.cache.properties;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * @version V1.0
+ * @Description: Redis 合并写入相关参数配置
+ * 开启后 put/evict 立即更新本地缓存，Redis 写入先进入缓冲区，达到时间窗口或条目数量后通过一次管道批量写入
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/11 14:30
+ */
+@Data
+public class WriteCoalescingProperties {
+  /** 是否开启合并写入，默认关闭 */
+  private boolean enabled = false;
+
+  /** 缓冲的最长时间，超过后批量写入 Redis */
+  private Duration window = Duration.ofMillis(5);
+
+  /** 缓冲的最大条目数，达到后立即批量写入 Redis */
+  private int maxBatchSize = 100;
+}
@@ -0,0 +1,127 @@
+package com.javafree.cloud.cache.serializer;
+
+import com.javafree.cloud.cache.enums.CompressionAlgorithm;
+import com.javafree.cloud.cache.properties.CompressionProperties;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.util.ClassUtils;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * @version V1.0
+ * @Description: 压缩序列化工具，包装实际的值序列化工具
+ * 序列化结果达到阈值且压缩后变小时写入：标记(0x00) 算法编号(1) 原始长度(int) 压缩数据，否则按原样写入。
+ * JSON、Smile、CBOR、Kryo 和 JDK 序列化的非空值都不以 0x00 开头，未压缩的数据和开启压缩之前写入的数据按原样解码
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/17 10:30
+ */
+public class CompressingRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte MARKER = 0x00;
+    static final int HEADER_LENGTH = 6;
+
+    private final RedisSerializer<Object> delegate;
+    private final Compressor compressor;
+    private final int threshold;
+    private final int level;
+    private final CompressionStats stats = new CompressionStats();
+    // 读取时按头部的算法编号解压，修改配置的算法后旧数据仍然可以读取
+    private final Map<CompressionAlgorithm, Compressor> decompressors = new EnumMap<>(CompressionAlgorithm.class);
+
+    public CompressingRedisSerializer(
+            @NonNull RedisSerializer<Object> delegate, @NonNull CompressionProperties properties) {
+        this.delegate = delegate;
+        this.compressor = compressor(properties.getAlgorithm());
+        this.threshold = (int) Math.min(Integer.MAX_VALUE, properties.getThreshold().toBytes());
+        this.level = properties.getLevel();
+        this.decompressors.put(properties.getAlgorithm(), compressor);
+    }
+
+    public CompressionStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public byte[] serialize(@Nullable Object value) throws SerializationException {
+        byte[] raw = delegate.serialize(value);
+        if (raw == null || raw.length < threshold) return raw;
+
+        long start = System.nanoTime();
+        byte[] compressed;
+        try {
+            compressed = compressor.compress(raw, HEADER_LENGTH, level);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Cannot compress cache value", e);
+        }
+        boolean smaller = compressed.length < raw.length;
+        stats.recordCompression(raw.length, smaller ? compressed.length : raw.length, System.nanoTime() - start);
+        if (!smaller) return raw;
+
+        compressed[0] = MARKER;
+        compressed[1] = compressor.algorithm().getId();
+        compressed[2] = (byte) (raw.length >>> 24);
+        compressed[3] = (byte) (raw.length >>> 16);
+        compressed[4] = (byte) (raw.length >>> 8);
+        compressed[5] = (byte) raw.length;
+        return compressed;
+    }
+
+    @Override
+    public Object deserialize(@Nullable byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length < HEADER_LENGTH || bytes[0] != MARKER) {
+            return delegate.deserialize(bytes);
+        }
+        CompressionAlgorithm algorithm = CompressionAlgorithm.of(bytes[1]);
+        if (algorithm == null) {
+            throw new SerializationException("Unknown cache value compression algorithm " + bytes[1]);
+        }
+        int length =
+                ((bytes[2] & 0xFF) << 24) | ((bytes[3] & 0xFF) << 16) | ((bytes[4] & 0xFF) << 8) | (bytes[5] & 0xFF);
+
+        long start = System.nanoTime();
+        byte[] raw;
+        try {
+            raw = decompressor(algorithm).decompress(bytes, HEADER_LENGTH, length);
+        } catch (RuntimeException e) {
+            throw new SerializationException("Cannot decompress cache value", e);
+        }
+        stats.recordDecompression(System.nanoTime() - start);
+        return delegate.deserialize(raw);
+    }
+
+    private Compressor decompressor(@NonNull CompressionAlgorithm algorithm) {
+        synchronized (decompressors) {
+            return decompressors.computeIfAbsent(algorithm, CompressingRedisSerializer::compressor);
+        }
+    }
+
+    /**
+     * 创建压缩算法实现，所需的可选依赖不存在时抛出 IllegalStateException
+     * @param algorithm
+     * @return
+     */
+    private static Compressor compressor(@NonNull CompressionAlgorithm algorithm) {
+        switch (algorithm) {
+            case LZ4:
+                requireClass("net.jpountz.lz4.LZ4Factory", "lz4-java");
+                return new Lz4Compressor();
+            case ZSTD:
+                requireClass("com.github.luben.zstd.Zstd", "zstd-jni");
+                return new ZstdCompressor();
+            case DEFLATE:
+            default:
+                return new DeflateCompressor();
+        }
+    }
+
+    private static void requireClass(@NonNull String className, @NonNull String artifactId) {
+        if (!ClassUtils.isPresent(className, CompressingRedisSerializer.class.getClassLoader())) {
+            throw new IllegalStateException(
+                    "Cache value compression requires " + artifactId + " on the classpath");
+        }
+    }
+}
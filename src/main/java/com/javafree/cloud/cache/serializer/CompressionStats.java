@@ -0,0 +1,63 @@
+package com.javafree.cloud.cache.serializer;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @version V1.0
+ * @Description: 缓存值压缩统计，用于导出压缩率和压缩、解压耗时指标
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/17 10:10
+ */
+public class CompressionStats {
+    private final LongAdder compressions = new LongAdder();
+    private final LongAdder uncompressedBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder compressNanos = new LongAdder();
+    private final LongAdder decompressions = new LongAdder();
+    private final LongAdder decompressNanos = new LongAdder();
+
+    void recordCompression(int uncompressedSize, int compressedSize, long nanos) {
+        compressions.increment();
+        uncompressedBytes.add(uncompressedSize);
+        compressedBytes.add(compressedSize);
+        compressNanos.add(nanos);
+    }
+
+    void recordDecompression(long nanos) {
+        decompressions.increment();
+        decompressNanos.add(nanos);
+    }
+
+    /** 压缩次数，包括压缩后没有变小而按原样写入的值 */
+    public long compressionCount() {
+        return compressions.sum();
+    }
+
+    /** 压缩前的总字节数 */
+    public long uncompressedBytes() {
+        return uncompressedBytes.sum();
+    }
+
+    /** 写入 Redis 的总字节数 */
+    public long compressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    /** 压缩率，写入字节数 / 压缩前字节数，还没有压缩过时为 1 */
+    public double compressionRatio() {
+        long uncompressed = uncompressedBytes();
+        return uncompressed == 0 ? 1.0 : (double) compressedBytes() / uncompressed;
+    }
+
+    public long compressNanos() {
+        return compressNanos.sum();
+    }
+
+    public long decompressionCount() {
+        return decompressions.sum();
+    }
+
+    public long decompressNanos() {
+        return decompressNanos.sum();
+    }
+}
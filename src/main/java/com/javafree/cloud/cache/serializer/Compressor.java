@@ -0,0 +1,32 @@
+package com.javafree.cloud.cache.serializer;
+
+import com.javafree.cloud.cache.enums.CompressionAlgorithm;
+
+/**
+ * @version V1.0
+ * @Description: 压缩算法实现
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/17 10:20
+ */
+interface Compressor {
+
+    CompressionAlgorithm algorithm();
+
+    /**
+     * 压缩数据
+     * @param raw  原始数据
+     * @param offset  结果开头为头部预留的字节数
+     * @param level  压缩级别，-1 为默认级别
+     * @return  前 offset 个字节未填写的压缩结果
+     */
+    byte[] compress(byte[] raw, int offset, int level);
+
+    /**
+     * 解压数据
+     * @param compressed  压缩数据
+     * @param offset  压缩数据开始的位置
+     * @param length  原始数据长度
+     * @return
+     */
+    byte[] decompress(byte[] compressed, int offset, int length);
+}
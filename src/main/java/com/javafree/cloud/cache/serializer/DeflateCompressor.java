@@ -0,0 +1,61 @@
+package com.javafree.cloud.cache.serializer;
+
+import com.javafree.cloud.cache.enums.CompressionAlgorithm;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * @version V1.0
+ * @Description: JDK Deflate 压缩
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/17 10:22
+ */
+class DeflateCompressor implements Compressor {
+
+    @Override
+    public CompressionAlgorithm algorithm() {
+        return CompressionAlgorithm.DEFLATE;
+    }
+
+    @Override
+    public byte[] compress(byte[] raw, int offset, int level) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] buffer = new byte[offset + raw.length / 2 + 64];
+            int length = offset;
+            while (!deflater.finished()) {
+                if (length == buffer.length) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return Arrays.copyOf(buffer, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] compressed, int offset, int length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed, offset, compressed.length - offset);
+            byte[] raw = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int count = inflater.inflate(raw, read, length - read);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                read += count;
+            }
+            if (read != length) throw new IllegalStateException("Truncated deflate data");
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
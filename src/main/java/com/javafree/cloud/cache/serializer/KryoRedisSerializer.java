@@ -0,0 +1,81 @@
+package com.javafree.cloud.cache.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import com.esotericsoftware.kryo.util.Pool;
+import com.javafree.cloud.cache.properties.KryoProperties;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @version V1.0
+ * @Description: 基于 Kryo 的 Redis 值序列化工具
+ * Kryo 实例不是线程安全的，通过对象池复用；配置中注册的类按顺序分配类编号
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/16 10:40
+ */
+public class KryoRedisSerializer implements RedisSerializer<Object> {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private final Pool<Kryo> kryoPool;
+
+    public KryoRedisSerializer(@NonNull KryoProperties properties) {
+        ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+        List<Class<?>> registeredClasses = new ArrayList<>(properties.getRegisteredClasses().size());
+        for (String className : properties.getRegisteredClasses()) {
+            registeredClasses.add(ClassUtils.resolveClassName(className, classLoader));
+        }
+        this.kryoPool =
+                new Pool<Kryo>(true, false) {
+                    @Override
+                    protected Kryo create() {
+                        Kryo kryo = new Kryo();
+                        if (classLoader != null) kryo.setClassLoader(classLoader);
+                        kryo.setRegistrationRequired(properties.isRegistrationRequired());
+                        kryo.setReferences(true);
+                        // 没有无参构造方法的类不调用构造方法直接创建
+                        kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+                        registeredClasses.forEach(kryo::register);
+                        return kryo;
+                    }
+                };
+    }
+
+    @Override
+    public byte[] serialize(@Nullable Object value) throws SerializationException {
+        if (value == null) return new byte[0];
+        Kryo kryo = kryoPool.obtain();
+        try (Output output = new Output(BUFFER_SIZE, -1)) {
+            kryo.writeClassAndObject(output, value);
+            return output.toBytes();
+        } catch (KryoException e) {
+            throw new SerializationException("Cannot serialize cache value with Kryo", e);
+        } finally {
+            kryoPool.free(kryo);
+        }
+    }
+
+    @Override
+    public Object deserialize(@Nullable byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) return null;
+        Kryo kryo = kryoPool.obtain();
+        try (Input input = new Input(bytes)) {
+            return kryo.readClassAndObject(input);
+        } catch (KryoException e) {
+            throw new SerializationException("Cannot deserialize cache value with Kryo", e);
+        } finally {
+            kryoPool.free(kryo);
+        }
+    }
+}
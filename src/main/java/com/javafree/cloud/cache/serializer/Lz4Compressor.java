@@ -0,0 +1,45 @@
+package com.javafree.cloud.cache.serializer;
+
+import com.javafree.cloud.cache.enums.CompressionAlgorithm;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import java.util.Arrays;
+
+/**
+ * @version V1.0
+ * @Description: LZ4 压缩，有本地库时使用 JNI 实现，否则使用纯 Java 实现
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/17 10:24
+ */
+class Lz4Compressor implements Compressor {
+
+    private final LZ4Compressor compressor;
+    private final LZ4FastDecompressor decompressor;
+
+    Lz4Compressor() {
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.fastDecompressor();
+    }
+
+    @Override
+    public CompressionAlgorithm algorithm() {
+        return CompressionAlgorithm.LZ4;
+    }
+
+    @Override
+    public byte[] compress(byte[] raw, int offset, int level) {
+        byte[] buffer = new byte[offset + compressor.maxCompressedLength(raw.length)];
+        int length = compressor.compress(raw, 0, raw.length, buffer, offset);
+        return Arrays.copyOf(buffer, offset + length);
+    }
+
+    @Override
+    public byte[] decompress(byte[] compressed, int offset, int length) {
+        byte[] raw = new byte[length];
+        decompressor.decompress(compressed, offset, raw, 0, length);
+        return raw;
+    }
+}
@@ -0,0 +1,85 @@
+package com.javafree.cloud.cache.serializer;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.javafree.cloud.cache.enums.SerializerType;
+import com.javafree.cloud.cache.properties.KryoProperties;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.ClassUtils;
+
+/**
+ * @version V1.0
+ * @Description: 按 {@link SerializerType} 创建 Redis 缓存值的序列化工具
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/16 10:20
+ */
+public final class RedisValueSerializers {
+
+    private RedisValueSerializers() {
+    }
+
+    /**
+     * 创建序列化工具，所需的可选依赖不存在时抛出 IllegalStateException
+     * @param type  序列化格式
+     * @param kryo  Kryo 配置，type 为 KRYO 时使用
+     * @return
+     */
+    public static RedisSerializer<Object> create(@NonNull SerializerType type, @NonNull KryoProperties kryo) {
+        switch (type) {
+            case SMILE:
+                return jackson(
+                        jsonFactory("com.fasterxml.jackson.dataformat.smile.SmileFactory", "jackson-dataformat-smile"));
+            case CBOR:
+                return jackson(
+                        jsonFactory("com.fasterxml.jackson.dataformat.cbor.CBORFactory", "jackson-dataformat-cbor"));
+            case KRYO:
+                requireClass("com.esotericsoftware.kryo.Kryo", "kryo");
+                return new KryoRedisSerializer(kryo);
+            case JSON:
+            default:
+                return jackson(null);
+        }
+    }
+
+    /**
+     * 带类型信息的 Jackson 序列化工具，与之前 toRedisCacheConfiguration 中的配置相同
+     * @param factory  为 null 时使用 JSON
+     * @return
+     */
+    private static RedisSerializer<Object> jackson(@Nullable JsonFactory factory) {
+        Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer<Object>(Object.class);
+        ObjectMapper om = factory == null ? new ObjectMapper() : new ObjectMapper(factory);
+        om.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        om.activateDefaultTyping(LaissezFaireSubTypeValidator.instance,ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.WRAPPER_ARRAY);
+        jackson2JsonRedisSerializer.setObjectMapper(om);
+        return jackson2JsonRedisSerializer;
+    }
+
+    /**
+     * 通过反射创建二进制格式的 JsonFactory，避免可选依赖不存在时加载本类失败
+     * @param className
+     * @param artifactId
+     * @return
+     */
+    private static JsonFactory jsonFactory(@NonNull String className, @NonNull String artifactId) {
+        requireClass(className, artifactId);
+        return BeanUtils.instantiateClass(
+                ClassUtils.resolveClassName(className, RedisValueSerializers.class.getClassLoader()),
+                JsonFactory.class);
+    }
+
+    private static void requireClass(@NonNull String className, @NonNull String artifactId) {
+        if (!ClassUtils.isPresent(className, RedisValueSerializers.class.getClassLoader())) {
+            throw new IllegalStateException(
+                    "Cache value serializer requires " + artifactId + " on the classpath");
+        }
+    }
+}
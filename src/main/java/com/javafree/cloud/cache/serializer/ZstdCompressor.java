@@ -0,0 +1,41 @@
+package com.javafree.cloud.cache.serializer;
+
+import com.github.luben.zstd.Zstd;
+import com.javafree.cloud.cache.enums.CompressionAlgorithm;
+
+import java.util.Arrays;
+
+/**
+ * @version V1.0
+ * @Description: Zstandard 压缩
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/17 10:26
+ */
+class ZstdCompressor implements Compressor {
+
+    private static final int DEFAULT_LEVEL = 3;
+
+    @Override
+    public CompressionAlgorithm algorithm() {
+        return CompressionAlgorithm.ZSTD;
+    }
+
+    @Override
+    public byte[] compress(byte[] raw, int offset, int level) {
+        byte[] buffer = new byte[offset + (int) Zstd.compressBound(raw.length)];
+        long length =
+                Zstd.compressByteArray(
+                        buffer, offset, buffer.length - offset, raw, 0, raw.length, level < 0 ? DEFAULT_LEVEL : level);
+        if (Zstd.isError(length)) throw new IllegalStateException(Zstd.getErrorName(length));
+        return Arrays.copyOf(buffer, offset + (int) length);
+    }
+
+    @Override
+    public byte[] decompress(byte[] compressed, int offset, int length) {
+        byte[] raw = new byte[length];
+        long read = Zstd.decompressByteArray(raw, 0, length, compressed, offset, compressed.length - offset);
+        if (Zstd.isError(read)) throw new IllegalStateException(Zstd.getErrorName(read));
+        if (read != length) throw new IllegalStateException("Truncated zstd data");
+        return raw;
+    }
+}
@@ -3,15 +3,20 @@ package com.javafree.cloud.cache.support;
 /**
  * @version V1.0
  * @Description: 用于删除缓存的消息对象
+ * 单条消息可以是单个键（entryKey）、整个缓存（entryKey 为空）、按缓存名称分组的批量键（entryKeys）
+ * 或按代际清空后缓存的新代际号（generation）
  * @Author gwz  gwz126@126.com
  * @Date 2022/8/2 17:10
  */
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
@@ -19,4 +24,40 @@ import java.io.Serializable;
 public class CacheEvictMessage implements Serializable {
   private String cacheName;
   private String entryKey;
-}
\ No newline at end of file
+  /** 批量删除的键，key 为缓存名称，value 为该缓存中要删除的键；不输出空值，单个键的 JSON 消息与旧版本相同 */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private Map<String, List<String>> entryKeys;
+  /** 发送消息的节点标识，以 JSON 格式发送时为空且不输出 */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private String origin;
+  /** 按代际清空后缓存的新代际号，为空时不是代际消息；不输出空值，旧版本节点解析 JSON 消息时不会遇到未知属性 */
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private Long generation;
+
+  public CacheEvictMessage(String cacheName, String entryKey) {
+    this(cacheName, entryKey, null, null, null);
+  }
+
+  public CacheEvictMessage(String cacheName, String entryKey, Map<String, List<String>> entryKeys, String origin) {
+    this(cacheName, entryKey, entryKeys, origin, null);
+  }
+
+  /**
+   * 创建批量删除消息
+   * @param entryKeys  按缓存名称分组的键
+   * @return
+   */
+  public static CacheEvictMessage batch(Map<String, List<String>> entryKeys) {
+    return new CacheEvictMessage(null, null, entryKeys, null);
+  }
+
+  /**
+   * 创建代际消息，接收方的代际号小于该值时清空本地缓存
+   * @param cacheName  缓存名称
+   * @param generation  新代际号
+   * @return
+   */
+  public static CacheEvictMessage generation(String cacheName, long generation) {
+    return new CacheEvictMessage(cacheName, null, null, null, generation);
+  }
+}
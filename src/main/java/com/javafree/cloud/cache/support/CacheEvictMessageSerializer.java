@@ -0,0 +1,167 @@
+package com.javafree.cloud.cache.support;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @version V1.0
+ * @Description: 删除通知消息的二进制编解码器
+ * 格式：魔数(1) 版本(1) 类型(1) 来源节点 + 按类型的缓存名称和键（代际消息为缓存名称和代际号(long)），
+ * 字符串为长度(int) + UTF-8 字节，null 的长度为 -1。
+ * 解码时不经过反射和 ObjectMapper；首字节不是魔数的消息交给 fallback（旧版本节点发送的 JSON 消息）解码
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/15 10:30
+ */
+public class CacheEvictMessageSerializer implements RedisSerializer<CacheEvictMessage> {
+
+    static final byte MAGIC = (byte) 0xCE;
+    static final byte VERSION = 1;
+
+    private static final byte TYPE_KEY = 0;
+    private static final byte TYPE_CLEAR = 1;
+    private static final byte TYPE_BATCH = 2;
+    private static final byte TYPE_GENERATION = 3;
+
+    private final RedisSerializer<?> fallback;
+    private final boolean binaryFormat;
+
+    /**
+     * @param fallback  旧格式消息的序列化工具，一般为 multiLevelCacheRedisTemplate 的值序列化工具
+     * @param binaryFormat  是否以二进制格式发送，为 false 时仍用 fallback 发送，用于集群中还有旧版本节点的滚动升级
+     */
+    public CacheEvictMessageSerializer(@NonNull RedisSerializer<?> fallback, boolean binaryFormat) {
+        this.fallback = fallback;
+        this.binaryFormat = binaryFormat;
+    }
+
+    /**
+     * 是否以二进制格式发送，为 false 时发送旧版本节点也能解析的 JSON 消息
+     * @return
+     */
+    public boolean isBinaryFormat() {
+        return binaryFormat;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public byte[] serialize(@Nullable CacheEvictMessage message) throws SerializationException {
+        if (message == null) return null;
+        if (!binaryFormat) return ((RedisSerializer<Object>) fallback).serialize(message);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(MAGIC);
+            out.writeByte(VERSION);
+            if (message.getGeneration() != null) {
+                out.writeByte(TYPE_GENERATION);
+                writeString(out, message.getOrigin());
+                writeString(out, message.getCacheName());
+                out.writeLong(message.getGeneration());
+            } else if (message.getEntryKeys() != null) {
+                out.writeByte(TYPE_BATCH);
+                writeString(out, message.getOrigin());
+                out.writeInt(message.getEntryKeys().size());
+                for (Map.Entry<String, List<String>> entry : message.getEntryKeys().entrySet()) {
+                    writeString(out, entry.getKey());
+                    List<String> keys = entry.getValue();
+                    out.writeInt(keys == null ? 0 : keys.size());
+                    if (keys != null) {
+                        for (String key : keys) writeString(out, key);
+                    }
+                }
+            } else if (message.getEntryKey() == null) {
+                out.writeByte(TYPE_CLEAR);
+                writeString(out, message.getOrigin());
+                writeString(out, message.getCacheName());
+            } else {
+                out.writeByte(TYPE_KEY);
+                writeString(out, message.getOrigin());
+                writeString(out, message.getCacheName());
+                writeString(out, message.getEntryKey());
+            }
+        } catch (IOException e) {
+            throw new SerializationException("Cannot serialize cache evict message", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public CacheEvictMessage deserialize(@Nullable byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) return null;
+        if (bytes[0] != MAGIC) return (CacheEvictMessage) fallback.deserialize(bytes);
+
+        try {
+            ByteBuffer in = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+            byte version = in.get();
+            if (version > VERSION) {
+                throw new SerializationException("Unsupported cache evict message version " + version);
+            }
+            byte type = in.get();
+            String origin = readString(in);
+            switch (type) {
+                case TYPE_KEY:
+                    return new CacheEvictMessage(readString(in), readString(in), null, origin);
+                case TYPE_CLEAR:
+                    return new CacheEvictMessage(readString(in), null, null, origin);
+                case TYPE_BATCH:
+                    int cacheCount = in.getInt();
+                    Map<String, List<String>> entryKeys = new LinkedHashMap<>(cacheCount * 2);
+                    for (int i = 0; i < cacheCount; i++) {
+                        String cacheName = readString(in);
+                        int keyCount = in.getInt();
+                        List<String> keys = new ArrayList<>(keyCount);
+                        for (int j = 0; j < keyCount; j++) keys.add(readString(in));
+                        entryKeys.put(cacheName, keys);
+                    }
+                    return new CacheEvictMessage(null, null, entryKeys, origin);
+                case TYPE_GENERATION:
+                    return new CacheEvictMessage(readString(in), null, null, origin, in.getLong());
+                default:
+                    throw new SerializationException("Unknown cache evict message type " + type);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new SerializationException("Truncated cache evict message", e);
+        }
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return CacheEvictMessage.class;
+    }
+
+    private static void writeString(@NonNull DataOutputStream out, @Nullable String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(raw.length);
+        out.write(raw);
+    }
+
+    @Nullable
+    private static String readString(@NonNull ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) return null;
+        if (length > in.remaining()) throw new BufferUnderflowException();
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        // 通过 Buffer 调用 position，JDK 9 以上编译的字节码在 Java 8 上运行不会找不到方法
+        ((Buffer) in).position(in.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,173 @@
+package com.javafree.cloud.cache.support;
+
+import com.javafree.cloud.cache.enums.InvalidationTransport;
+import com.javafree.cloud.cache.properties.InvalidationProperties;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.vavr.control.Try;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * @version V1.0
+ * @Description: 删除通知发送器，由缓存管理器创建并在所有缓存之间共用
+ * 开启合并时，时间窗口内所有缓存的删除通知合并为一条 {@link CacheEvictMessage} 批量消息
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/12 10:20
+ */
+public class CacheEvictPublisher {
+
+    private final RedisTemplate<Object, Object> redisTemplate;
+    private final byte[] rawTopic;
+    private final CircuitBreaker cacheCircuitBreaker;
+    private final CacheEvictMessageSerializer serializer;
+    private final String nodeId;
+    // 由 Redis 推送删除通知时不发布消息
+    private final boolean publishing;
+    // 未开启合并时为 null
+    private final RedisWriteCoalescer coalescer;
+
+    public CacheEvictPublisher(
+            @NonNull RedisTemplate<Object, Object> redisTemplate,
+            @NonNull String topic,
+            @NonNull InvalidationProperties properties,
+            @NonNull CircuitBreaker cacheCircuitBreaker) {
+        this(
+                redisTemplate,
+                topic,
+                properties,
+                cacheCircuitBreaker,
+                new CacheEvictMessageSerializer(redisTemplate.getValueSerializer(), properties.isBinaryFormat()),
+                UUID.randomUUID().toString());
+    }
+
+    public CacheEvictPublisher(
+            @NonNull RedisTemplate<Object, Object> redisTemplate,
+            @NonNull String topic,
+            @NonNull InvalidationProperties properties,
+            @NonNull CircuitBreaker cacheCircuitBreaker,
+            @NonNull CacheEvictMessageSerializer serializer,
+            @NonNull String nodeId) {
+        this.redisTemplate = redisTemplate;
+        this.rawTopic = topic.getBytes(StandardCharsets.UTF_8);
+        this.cacheCircuitBreaker = cacheCircuitBreaker;
+        this.serializer = serializer;
+        this.nodeId = nodeId;
+        this.publishing = InvalidationTransport.PUBSUB.equals(properties.getTransport());
+        this.coalescer =
+                properties.getWindow().isZero()
+                        ? null
+                        : new RedisWriteCoalescer(
+                                properties.getWindow(), properties.getMaxBatchSize(), this::sendBatch);
+    }
+
+    /**
+     * 发送删除通知，清空整个缓存的通知先发送之前合并的通知后立即发送
+     * @param cacheName  缓存名称
+     * @param entryKey  要删除的键，为 null 时表示清空缓存
+     */
+    public void publish(@NonNull String cacheName, @Nullable String entryKey) {
+        if (!publishing) return;
+        if (coalescer == null || entryKey == null) {
+            flush();
+            send(new CacheEvictMessage(cacheName, entryKey));
+            return;
+        }
+        coalescer.add(new SimpleImmutableEntry<>(cacheName, entryKey), Boolean.TRUE);
+    }
+
+    /**
+     * 发送按代际清空缓存的通知，之前合并的通知先发送
+     * @param cacheName  缓存名称
+     * @param generation  清空后的代际号
+     */
+    public void publishGeneration(@NonNull String cacheName, long generation) {
+        if (!publishing) return;
+        flush();
+        send(CacheEvictMessage.generation(cacheName, generation));
+    }
+
+    /**
+     * 立即发送合并中的删除通知
+     */
+    public void flush() {
+        if (coalescer != null) coalescer.flush();
+    }
+
+    /**
+     * 填入来源节点并编码消息，用于在管道中与写入命令一起发送
+     * 以 JSON 格式发送时不填来源节点，消息与旧版本相同，本节点也会处理自己发出的消息
+     * @param message
+     * @return
+     */
+    byte[] encode(@NonNull CacheEvictMessage message) {
+        if (serializer.isBinaryFormat()) message.setOrigin(nodeId);
+        return serializer.serialize(message);
+    }
+
+    /**
+     * 编码要发送的消息，以 JSON 格式发送时批量消息拆分为单个键的消息，旧版本节点只能解析单个键的消息
+     * @param message
+     * @return
+     */
+    List<byte[]> encodeAll(@NonNull CacheEvictMessage message) {
+        if (serializer.isBinaryFormat() || message.getEntryKeys() == null) {
+            return Collections.singletonList(encode(message));
+        }
+        List<byte[]> rawMessages = new ArrayList<>();
+        message.getEntryKeys()
+                .forEach(
+                        (cacheName, keys) ->
+                                keys.forEach(key -> rawMessages.add(encode(new CacheEvictMessage(cacheName, key)))));
+        return rawMessages;
+    }
+
+    /**
+     * 是否发布删除通知，由 Redis 推送删除通知时为 false
+     * @return
+     */
+    boolean isPublishing() {
+        return publishing;
+    }
+
+    byte[] getRawTopic() {
+        return rawTopic;
+    }
+
+    String getNodeId() {
+        return nodeId;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void sendBatch(@NonNull Map<Object, Object> batch) {
+        Map<String, List<String>> entryKeys = new LinkedHashMap<>();
+        for (Object entry : batch.keySet()) {
+            Map.Entry<String, String> cacheEntry = (Map.Entry<String, String>) entry;
+            entryKeys.computeIfAbsent(cacheEntry.getKey(), name -> new ArrayList<>()).add(cacheEntry.getValue());
+        }
+        send(CacheEvictMessage.batch(entryKeys));
+    }
+
+    private void send(@NonNull CacheEvictMessage message) {
+        final List<byte[]> rawMessages = encodeAll(message);
+        Try.runRunnable(
+                cacheCircuitBreaker.decorateRunnable(
+                        () ->
+                                redisTemplate.execute(
+                                        (RedisCallback<Object>)
+                                                connection -> {
+                                                    rawMessages.forEach(rawMessage -> connection.publish(rawTopic, rawMessage));
+                                                    return null;
+                                                })));
+    }
+}
@@ -0,0 +1,75 @@
+package com.javafree.cloud.cache.support;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * @version V1.0
+ * @Description: 由目标类、方法和参数组成的不可变缓存 key
+ * 哈希值在创建时计算，本地缓存命中时不需要拼接字符串；只有在需要 Redis 键时才通过 {@link #toString()}
+ * 生成与 customKeyGenerator 相同的字符串，生成后保存在对象中
+ * 参数需要实现按值比较的 equals/hashCode，否则每次调用生成的 key 都不相等
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/23 15:20
+ */
+public final class CompositeCacheKey {
+
+    private final Class<?> targetClass;
+    private final Method method;
+    private final Object[] params;
+    private final int hashCode;
+    private final CustomKeyGenerator renderer;
+    private volatile String rendered;
+
+    CompositeCacheKey(
+            @NonNull Class<?> targetClass,
+            @NonNull Method method,
+            @NonNull Object[] params,
+            @NonNull CustomKeyGenerator renderer) {
+        this.targetClass = targetClass;
+        this.method = method;
+        this.params = params.clone();
+        this.renderer = renderer;
+        this.hashCode = 31 * (31 * targetClass.hashCode() + method.hashCode()) + Arrays.deepHashCode(this.params);
+    }
+
+    public Class<?> getTargetClass() {
+        return targetClass;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof CompositeCacheKey)) return false;
+        CompositeCacheKey that = (CompositeCacheKey) other;
+        return hashCode == that.hashCode
+                && targetClass == that.targetClass
+                && method.equals(that.method)
+                && Arrays.deepEquals(params, that.params);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /**
+     * 返回 Redis 中使用的 key，格式与 customKeyGenerator 相同
+     * @return
+     */
+    @Override
+    public String toString() {
+        String value = rendered;
+        if (value == null) {
+            value = renderer.generate(targetClass, method, params);
+            rendered = value;
+        }
+        return value;
+    }
+}
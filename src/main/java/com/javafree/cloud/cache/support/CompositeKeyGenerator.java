@@ -0,0 +1,33 @@
+package com.javafree.cloud.cache.support;
+
+import org.springframework.cache.interceptor.KeyGenerator;
+
+import java.lang.reflect.Method;
+
+/**
+ * @version V1.0
+ * @Description: 生成 {@link CompositeCacheKey} 的 keyGenerator
+ * 生成的 Redis 键与 customKeyGenerator 相同，两者可以共用缓存数据；本地缓存命中时不拼接字符串，不计算指纹码
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/23 15:40
+ */
+public class CompositeKeyGenerator implements KeyGenerator {
+
+    private final CustomKeyGenerator renderer;
+
+    public CompositeKeyGenerator() {
+        this(new CustomKeyGenerator());
+    }
+
+    /**
+     * @param renderer  需要 Redis 键时用来生成字符串的 customKeyGenerator
+     */
+    public CompositeKeyGenerator(CustomKeyGenerator renderer) {
+        this.renderer = renderer;
+    }
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        return new CompositeCacheKey(target.getClass(), method, params, renderer);
+    }
+}
@@ -3,7 +3,10 @@ package com.javafree.cloud.cache.support;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.javafree.cloud.cache.enums.KeyHashAlgorithm;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.lang.Nullable;
 import org.springframework.util.ObjectUtils;
@@ -11,6 +14,7 @@ import org.springframework.util.ObjectUtils;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
@@ -24,7 +28,7 @@ import java.util.TimeZone;
  * @Author gwz  gwz126@126.com
  * @Date 2022/8/5 14:45
  */
-
+@Slf4j
 public class CustomKeyGenerator implements KeyGenerator {
 
   private static ObjectMapper objectMapper = new ObjectMapper();
@@ -33,6 +37,50 @@ public class CustomKeyGenerator implements KeyGenerator {
   // 日期格式化
   private static final String STANDARD_FORMAT = "yyyy-MM-dd HH:mm:ss";
 
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  // 类的简单名称，Java 8 的 getSimpleName 每次调用都重新计算
+  private static final ClassValue<String> SIMPLE_NAMES =
+      new ClassValue<String>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+          return type.getSimpleName();
+        }
+      };
+
+  // 按参数类型缓存的 JSON 序列化器
+  private static final ClassValue<ObjectWriter> JSON_WRITERS =
+      new ClassValue<ObjectWriter>() {
+        @Override
+        protected ObjectWriter computeValue(Class<?> type) {
+          return objectMapper.writerFor(type);
+        }
+      };
+
+  // MessageDigest 不是线程安全的，每个线程复用一个实例
+  private static final ThreadLocal<MessageDigest> MD5_DIGESTS =
+      ThreadLocal.withInitial(
+          () -> {
+            try {
+              return MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+              throw new IllegalStateException(e);
+            }
+          });
+
+  private final KeyHashAlgorithm keyHash;
+
+  public CustomKeyGenerator() {
+    this(KeyHashAlgorithm.MD5);
+  }
+
+  /**
+   * @param keyHash  对方法参数取指纹码的算法
+   */
+  public CustomKeyGenerator(KeyHashAlgorithm keyHash) {
+    this.keyHash = keyHash;
+  }
+
   static {
     //忽略 在json字符串中存在，但是在java对象中不存在对应属性的情况。防止错误
     objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
@@ -53,13 +101,14 @@ public class CustomKeyGenerator implements KeyGenerator {
    * 对象转为json字符串
    * @param obj
    * @return
+   * @throws IllegalArgumentException  无法序列化时抛出，不使用空字符串，否则不同参数会生成相同的 key
    */
   private static String getJsonStringFromObject(Object obj) {
     StringWriter writer = new StringWriter();
     try {
       objectMapper.writeValue(writer, obj);
     } catch (IOException e) {
-      e.printStackTrace();
+      throw serializationFailed(obj, e);
     }
     return writer.toString();
   }
@@ -85,25 +134,66 @@ public class CustomKeyGenerator implements KeyGenerator {
     return sj.toString();
   }
 
+  /**
+   * 参数转为带类型和长度前缀的字符串：简单类型直接格式化，其余类型使用按类缓存的 JSON 序列化器，
+   * 类型前缀区分格式化结果相同的不同类型（如 "1"、1 和 1L），长度前缀保证不同的参数组合不会拼接出相同的字符串
+   * @param params
+   * @return
+   */
+  private static String paramsToString(@Nullable Object[] params) {
+    if (ObjectUtils.isEmpty(params)) {
+      return "";
+    }
+    StringBuilder sb = new StringBuilder(64);
+    for (Object param : params) {
+      if (param == null) {
+        // 类名中不会出现 '-'，与类型前缀区分
+        sb.append('-');
+        continue;
+      }
+      String value = isSimpleValue(param) ? param.toString() : getJsonStringFromParam(param);
+      sb.append(param.getClass().getName()).append(':').append(value.length()).append(':').append(value);
+    }
+    return sb.toString();
+  }
+
+  private static boolean isSimpleValue(Object param) {
+    return param instanceof CharSequence
+        || param instanceof Number
+        || param instanceof Boolean
+        || param instanceof Character
+        || param instanceof Enum;
+  }
+
+  private static String getJsonStringFromParam(Object param) {
+    try {
+      return JSON_WRITERS.get(param.getClass()).writeValueAsString(param);
+    } catch (IOException e) {
+      throw serializationFailed(param, e);
+    }
+  }
+
+  private static IllegalArgumentException serializationFailed(Object param, IOException e) {
+    log.warn("Cache key parameter of type {} cannot be serialized", param.getClass().getName(), e);
+    return new IllegalArgumentException(
+        "Cache key parameter of type " + param.getClass().getName() + " cannot be serialized", e);
+  }
+
   /**
    * 对字符串取指纹码
    * @param value
    * @return
    */
   private String StringMD5(String value){
-    try {
-      MessageDigest mDigest = MessageDigest.getInstance("MD5");
-      byte[] md5 = mDigest.digest(value.getBytes());
-      StringBuilder sb = new StringBuilder();
-      //bytesToHex
-      for (byte b : md5) {
-        sb.append(String.format("%02x", b));
-      }
-      return sb.toString();
-    } catch (NoSuchAlgorithmException e) {
-      e.printStackTrace();
+    MessageDigest mDigest = MD5_DIGESTS.get();
+    byte[] md5 = mDigest.digest(value.getBytes());
+    //bytesToHex
+    char[] hex = new char[md5.length << 1];
+    for (int i = 0; i < md5.length; i++) {
+      hex[i << 1] = HEX_DIGITS[(md5[i] >>> 4) & 0xf];
+      hex[(i << 1) + 1] = HEX_DIGITS[md5[i] & 0xf];
     }
-    return "";
+    return new String(hex);
   }
   /**
    * cache key的生成
@@ -113,9 +203,24 @@ public class CustomKeyGenerator implements KeyGenerator {
    * @return
    */
   public Object generate(Object target, Method method, Object... params) {
-    return target.getClass().getSimpleName() + "_"
+    return generate(target.getClass(), method, params);
+  }
+
+  /**
+   * 按目标类生成 cache key，{@link CompositeCacheKey} 转为 Redis 键时使用
+   * @param targetClass
+   * @param method
+   * @param params
+   * @return
+   */
+  String generate(Class<?> targetClass, Method method, Object... params) {
+    String fingerprint =
+        KeyHashAlgorithm.MURMUR3_128.equals(keyHash)
+            ? MurmurHash3.hash128Hex(paramsToString(params).getBytes(StandardCharsets.UTF_8))
+            : StringMD5(arrayToString(params, "_"));
+    return SIMPLE_NAMES.get(targetClass) + "_"
             + method.getName() + "_"
-            + StringMD5(arrayToString(params, "_"));
+            + fingerprint;
 
 }
 }
@@ -0,0 +1,205 @@
+package com.javafree.cloud.cache.support;
+
+import com.javafree.cloud.cache.properties.HotKeyProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @version V1.0
+ * @Description: 热点 key 识别与固定
+ * 用 4 行 Count-Min Sketch 估算键的访问频率，计数器允许并发丢失少量计数以避免读取时的 CAS 争用；
+ * 每个窗口结束时计数减半，使频率反映最近的访问。热点 key 的值另外以强引用保存，不受本地缓存过期和驱逐影响
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/24 10:00
+ */
+public class HotKeyTracker {
+
+    private static final int[] SEEDS = {0x97cb3127, 0xb1f1a6bd, 0x7fe3b7a5, 0x3c6ef372};
+
+    private final int threshold;
+    private final int maxKeys;
+    private final long windowNanos;
+    private final long refreshAfterNanos;
+
+    private final int[][] counters;
+    private final int mask;
+    private final AtomicLong nextDecay;
+
+    // 热点 key 及其固定的值，值在第一次命中后才固定，此前为 NOT_PINNED
+    private final Map<String, Pinned> hot = new ConcurrentHashMap<>();
+
+    HotKeyTracker(@NonNull HotKeyProperties properties) {
+        this.threshold = properties.getThreshold();
+        this.maxKeys = properties.getMaxKeys();
+        this.windowNanos = properties.getWindow().toNanos();
+        this.refreshAfterNanos = properties.getRefreshAfter().toNanos();
+        int width = Math.max(16, Integer.highestOneBit(Math.max(1, properties.getSketchWidth() - 1)) << 1);
+        this.counters = new int[SEEDS.length][width];
+        this.mask = width - 1;
+        this.nextDecay = new AtomicLong(System.nanoTime() + windowNanos);
+    }
+
+    /**
+     * 记录一次读取
+     * @param localKey
+     * @return  键是否为热点 key
+     */
+    boolean record(@NonNull String localKey) {
+        decayIfNeeded();
+
+        int hash = localKey.hashCode();
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int[] row = counters[i];
+            int index = indexOf(hash, i);
+            int count = row[index];
+            if (count < Integer.MAX_VALUE) row[index] = ++count;
+            estimate = Math.min(estimate, count);
+        }
+
+        if (hot.containsKey(localKey)) return true;
+        if (estimate < threshold || hot.size() >= maxKeys) return false;
+        hot.putIfAbsent(localKey, Pinned.NOT_PINNED);
+        return true;
+    }
+
+    /**
+     * 返回热点 key 固定的值
+     * @param localKey
+     * @return  不是热点 key 或还没有固定值时为 null
+     */
+    @Nullable
+    Pinned pinned(@NonNull String localKey) {
+        Pinned pinned = hot.get(localKey);
+        return pinned == null || pinned == Pinned.NOT_PINNED ? null : pinned;
+    }
+
+    /**
+     * 热点 key 还没有固定值时固定当前值
+     * @param localKey
+     * @param storeValue
+     */
+    void pinIfAbsent(@NonNull String localKey, @NonNull Object storeValue) {
+        Pinned pinned = hot.get(localKey);
+        if (pinned == Pinned.NOT_PINNED) {
+            hot.replace(localKey, Pinned.NOT_PINNED, new Pinned(storeValue, System.nanoTime()));
+        }
+    }
+
+    /**
+     * 本地值更新时同步更新热点 key 固定的值，不是热点 key 时忽略
+     * @param localKey
+     * @param storeValue
+     */
+    void update(@NonNull String localKey, @NonNull Object storeValue) {
+        hot.computeIfPresent(localKey, (k, old) -> new Pinned(storeValue, System.nanoTime()));
+    }
+
+    /**
+     * 删除固定的值，键仍然是热点 key，下一次命中时重新固定
+     * @param localKey
+     */
+    void unpin(@NonNull String localKey) {
+        hot.computeIfPresent(localKey, (k, old) -> Pinned.NOT_PINNED);
+    }
+
+    void unpinAll(@NonNull Collection<String> localKeys) {
+        for (String localKey : localKeys) unpin(localKey);
+    }
+
+    void unpinAll() {
+        hot.replaceAll((k, old) -> Pinned.NOT_PINNED);
+    }
+
+    /**
+     * 固定的值是否需要后台刷新
+     * @param pinned
+     * @return
+     */
+    boolean needsRefresh(@NonNull Pinned pinned) {
+        return System.nanoTime() - pinned.pinnedAt >= refreshAfterNanos;
+    }
+
+    /**
+     * 当前的热点 key，按估算频率从高到低排列
+     * @return
+     */
+    public List<HotKey> hotKeys() {
+        List<HotKey> result = new ArrayList<>(hot.size());
+        hot.forEach(
+                (localKey, pinned) ->
+                        result.add(new HotKey(localKey, estimate(localKey), pinned != Pinned.NOT_PINNED)));
+        result.sort(Comparator.comparingInt(HotKey::getFrequency).reversed());
+        return result;
+    }
+
+    /**
+     * 估算键在当前窗口的访问频率
+     * @param localKey
+     * @return
+     */
+    public int estimate(@NonNull String localKey) {
+        int hash = localKey.hashCode();
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0; i < SEEDS.length; i++) {
+            estimate = Math.min(estimate, counters[i][indexOf(hash, i)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * 窗口结束时所有计数减半，频率低于阈值一半的热点 key 被取消
+     */
+    private void decayIfNeeded() {
+        long now = System.nanoTime();
+        long decayAt = nextDecay.get();
+        if (now - decayAt < 0 || !nextDecay.compareAndSet(decayAt, now + windowNanos)) return;
+
+        for (int[] row : counters) {
+            for (int i = 0; i < row.length; i++) row[i] >>>= 1;
+        }
+        hot.keySet().removeIf(localKey -> estimate(localKey) < threshold / 2);
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+    /**
+     * 热点 key 固定的值
+     */
+    static final class Pinned {
+        static final Pinned NOT_PINNED = new Pinned(null, 0);
+
+        final Object storeValue;
+        final long pinnedAt;
+
+        private Pinned(Object storeValue, long pinnedAt) {
+            this.storeValue = storeValue;
+            this.pinnedAt = pinnedAt;
+        }
+    }
+
+    /**
+     * 热点 key 的快照
+     */
+    @Data
+    @AllArgsConstructor
+    public static class HotKey {
+        private String key;
+        private int frequency;
+        private boolean pinned;
+    }
+}
@@ -0,0 +1,54 @@
+package com.javafree.cloud.cache.support;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @version V1.0
+ * @Description: 查看各缓存当前热点 key 的 actuator 端点，路径为 /actuator/cachehotkeys
+ * 只包含开启了热点 key 识别的缓存
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/24 14:10
+ */
+@Endpoint(id = "cachehotkeys")
+public class HotKeysEndpoint {
+
+    private final JavafreeMultiLevelCacheManager cacheManager;
+
+    public HotKeysEndpoint(JavafreeMultiLevelCacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * 所有缓存的热点 key
+     * @return  key 为缓存名称
+     */
+    @ReadOperation
+    public Map<String, List<HotKeyTracker.HotKey>> hotKeys() {
+        Map<String, List<HotKeyTracker.HotKey>> result = new TreeMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            List<HotKeyTracker.HotKey> hotKeys = hotKeys(name);
+            if (hotKeys != null) result.put(name, hotKeys);
+        }
+        return result;
+    }
+
+    /**
+     * 指定缓存的热点 key
+     * @param cacheName
+     * @return  缓存不存在或没有开启热点 key 识别时为 null，端点返回 404
+     */
+    @ReadOperation
+    @Nullable
+    public List<HotKeyTracker.HotKey> hotKeys(@Selector String cacheName) {
+        if (!cacheManager.getCacheNames().contains(cacheName)) return null;
+        HotKeyTracker tracker = ((JavafreeMultiLevelCache) cacheManager.getCache(cacheName)).getHotKeyTracker();
+        return tracker == null ? null : tracker.hotKeys();
+    }
+}
@@ -0,0 +1,82 @@
+package com.javafree.cloud.cache.support;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @version V1.0
+ * @Description: 本地缓存的失效版本号
+ * 每次删除或写入本地缓存时递增版本号并记录到键所在的分段，从 Redis 读取前取得当前版本号，
+ * 读取完成后若该键（或整个缓存）在此期间已失效，说明读到的值可能比删除通知更旧，不再写入本地缓存。
+ * 不同的键可能共用一个分段，冲突时只会放弃一次本地缓存写入，不影响正确性
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/24 10:15
+ */
+final class InvalidationStamps {
+
+    static final int DEFAULT_SLOTS = 1024;
+
+    private final AtomicLong counter = new AtomicLong();
+    private final AtomicLongArray slots;
+    private final int mask;
+    // 最近一次清空整个缓存时的版本号，并发清空时只前进不后退
+    private final AtomicLong clearedAt = new AtomicLong();
+
+    InvalidationStamps() {
+        this(DEFAULT_SLOTS);
+    }
+
+    /**
+     * @param slots  分段数量，必须为 2 的幂
+     */
+    InvalidationStamps(int slots) {
+        if (slots < 1 || Integer.bitCount(slots) != 1) {
+            throw new IllegalArgumentException("Invalidation stamp slots must be a power of two: " + slots);
+        }
+        this.slots = new AtomicLongArray(slots);
+        this.mask = slots - 1;
+    }
+
+    /**
+     * 从 Redis 读取前调用，返回当前版本号
+     * @return
+     */
+    long current() {
+        return counter.get();
+    }
+
+    /**
+     * 键失效，必须在删除或覆盖本地缓存中的条目之前调用
+     * @param localKey
+     */
+    void invalidate(@NonNull String localKey) {
+        long stamp = counter.incrementAndGet();
+        slots.accumulateAndGet(slotOf(localKey), stamp, Math::max);
+    }
+
+    /**
+     * 整个缓存失效，必须在清空本地缓存之前调用
+     */
+    void invalidateAll() {
+        clearedAt.accumulateAndGet(counter.incrementAndGet(), Math::max);
+    }
+
+    /**
+     * 键自取得版本号以来是否没有失效
+     * @param localKey
+     * @param stamp  读取前由 {@link #current()} 取得的版本号
+     * @return
+     */
+    boolean isCurrent(@NonNull String localKey, long stamp) {
+        return clearedAt.get() <= stamp && slots.get(slotOf(localKey)) <= stamp;
+    }
+
+    private int slotOf(@NonNull String localKey) {
+        int hash = localKey.hashCode();
+        // 混合高位，避免只有高位不同的哈希值落到同一个分段
+        hash ^= hash >>> 16;
+        return hash & mask;
+    }
+}
@@ -1,8 +1,15 @@
 package com.javafree.cloud.cache.support;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy;
+import com.javafree.cloud.cache.enums.ClearMode;
 import com.javafree.cloud.cache.enums.ExpireMode;
+import com.javafree.cloud.cache.properties.DistributedLockProperties;
 import com.javafree.cloud.cache.properties.MultiLevelCacheProperties;
+import com.javafree.cloud.cache.properties.OffHeapProperties;
+import com.javafree.cloud.cache.properties.RefreshProperties;
+import com.javafree.cloud.cache.serializer.CompressingRedisSerializer;
+import com.javafree.cloud.cache.serializer.CompressionStats;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.vavr.CheckedFunction0;
 import io.vavr.control.Try;
@@ -12,11 +19,40 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 import org.springframework.cache.support.SimpleValueWrapper;
 import org.springframework.data.redis.cache.RedisCache;
 import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.ReflectionUtils;
 
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
 /**
  * @version V1.0
@@ -30,18 +66,81 @@ public class JavafreeMultiLevelCache extends RedisCache {
     // 报错信息
     private static final String NO_REDIS_CONNECTION =
             "Redis connection factory was not found for RedisCacheWriter";
-    private static final String LOCK_WAS_NOT_INITIALIZED = "Lock was not initialized";
 
-    // 为ReentrantLocks 提供本地不可覆盖属性，以保持操作的原子性
+    // 分布式加载锁的键后缀
+    private static final String LOCK_KEY_SUFFIX = ":load-lock";
+
+    // 只有持有者才能释放分布式锁
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT =
+            new DefaultRedisScript<>(
+                    "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+                    Long.class);
+
+    // 代际计数器的键，拼接在缓存前缀之后；代际号标记以 g 开头，不会与缓存的键冲突
+    static final String GENERATION_KEY_SUFFIX = "#generation";
+    // Redis 键中代际号的标记，格式为 g<代际号>:<键>
+    private static final String GENERATION_TAG = "g";
+
+    // 合并写入缓冲区中表示删除操作的标记
+    static final Object EVICTED = new Object();
+
+    // 按值比较的键类型：重写了 equals 和 hashCode，并且不是可变的集合或数组
+    private static final ClassValue<Boolean> VALUE_KEY_TYPES =
+            new ClassValue<Boolean>() {
+                @Override
+                protected Boolean computeValue(Class<?> type) {
+                    if (type.isArray() || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)) {
+                        return false;
+                    }
+                    Method equals = ReflectionUtils.findMethod(type, "equals", Object.class);
+                    Method hashCode = ReflectionUtils.findMethod(type, "hashCode");
+                    return equals != null
+                            && hashCode != null
+                            && equals.getDeclaringClass() != Object.class
+                            && hashCode.getDeclaringClass() != Object.class;
+                }
+            };
+
+    // 为整个缓存加锁时使用的键，以保持操作的原子性
     private static final Object CACHE_WIDE_LOCK_OBJECT = new Object();
 
     protected final MultiLevelCacheProperties properties;
     protected final Cache<Object, Object> localCache;
-    protected final Cache<Object, ReentrantLock> locks;
+    // 加载值时按键加锁的锁表，持有或等待中的锁不会被删除
+    private final KeyLockTable locks = new KeyLockTable();
+    // putIfAbsent/evictIfPresent/invalidate 使用的分段锁，加锁时没有对象分配
+    private final StripedLocks stripedLocks;
 
     protected final CircuitBreaker cacheCircuitBreaker;
 
+    // 最近一次加载各键所用的时间（纳秒），用于提前刷新的概率计算
+    protected final Cache<Object, Long> loadCosts;
+
+    // 非 String 键转换后的字符串，本地缓存命中时不再经过 ConversionService 转换
+    private final Cache<Object, String> convertedKeys;
+    // 正在后台刷新的键，防止同一个键重复提交刷新任务
+    private final Set<Object> refreshingKeys = ConcurrentHashMap.newKeySet();
+    // 本地缓存的失效版本号，防止删除通知之前读取的 Redis 旧值在通知之后写入本地缓存
+    private final InvalidationStamps invalidationStamps = new InvalidationStamps();
+    private final Executor refreshExecutor;
+    // 未开启合并写入时为 null
+    private final RedisWriteCoalescer writeCoalescer;
+    private final CacheEvictPublisher evictPublisher;
+
     private final RedisTemplate<Object, Object> redisTemplate;
+    // 未开启压缩时为 null
+    private final CompressionStats compressionStats;
+    // 未开启堆外缓存时为 null
+    private final OffHeapStore offHeapStore;
+    // 未开启热点 key 识别时为 null
+    private final HotKeyTracker hotKeyTracker;
+    // 代际计数器在 Redis 中的键，未按代际清空时为 null
+    private final byte[] rawGenerationKey;
+    // 当前代际号，-1 表示需要从 Redis 读取
+    private volatile long generation = -1;
+    // 最近一次从 Redis 读取代际号的时间（System.nanoTime）
+    private volatile long generationSyncedAt;
+
     public JavafreeMultiLevelCache(
             String name,
             MultiLevelCacheProperties properties,
@@ -65,29 +164,246 @@ public class JavafreeMultiLevelCache extends RedisCache {
             RedisCacheWriter redisCacheWriter,RedisTemplate<Object, Object> redisTemplate,
             Cache<Object, Object> localCache,
             CircuitBreaker cacheCircuitBreaker) {
-        super(name,redisCacheWriter,properties.toRedisCacheConfiguration());
+        this(
+                name,
+                properties,
+                redisCacheWriter,
+                redisTemplate,
+                localCache,
+                cacheCircuitBreaker,
+                ForkJoinPool.commonPool(),
+                new CacheEvictPublisher(
+                        redisTemplate, properties.getTopic(), properties.getInvalidation(), cacheCircuitBreaker));
+    }
+
+    public JavafreeMultiLevelCache(
+            String name,
+            MultiLevelCacheProperties properties,
+            RedisCacheWriter redisCacheWriter,RedisTemplate<Object, Object> redisTemplate,
+            Cache<Object, Object> localCache,
+            CircuitBreaker cacheCircuitBreaker,
+            Executor refreshExecutor,
+            CacheEvictPublisher evictPublisher) {
+        // 使用全局配置与 caches.<name> 中单独设置合并后的配置
+        this(
+                name,
+                properties.forCache(name),
+                redisCacheWriter,
+                redisTemplate,
+                localCache,
+                cacheCircuitBreaker,
+                refreshExecutor,
+                evictPublisher,
+                properties.valueSerializerOf(name));
+    }
+
+    private JavafreeMultiLevelCache(
+            String name,
+            MultiLevelCacheProperties properties,
+            RedisCacheWriter redisCacheWriter,RedisTemplate<Object, Object> redisTemplate,
+            Cache<Object, Object> localCache,
+            CircuitBreaker cacheCircuitBreaker,
+            Executor refreshExecutor,
+            CacheEvictPublisher evictPublisher,
+            RedisSerializer<Object> valueSerializer) {
+        super(name,redisCacheWriter,properties.toRedisCacheConfiguration(name, valueSerializer));
         this.properties = properties;
+        this.compressionStats =
+                valueSerializer instanceof CompressingRedisSerializer
+                        ? ((CompressingRedisSerializer) valueSerializer).getStats()
+                        : null;
+        OffHeapProperties offHeap = properties.getOffHeap();
+        this.offHeapStore =
+                offHeap.isEnabled()
+                        ? new OffHeapStore(
+                                offHeap.getCapacity().toBytes(),
+                                (int) offHeap.getBlockSize().toBytes(),
+                                offHeapTimeToLive(properties, getCacheConfiguration().getTtl()).toNanos())
+                        : null;
+        this.hotKeyTracker =
+                properties.getHotKey().isEnabled() ? new HotKeyTracker(properties.getHotKey()) : null;
         this.redisTemplate = redisTemplate;
         this.localCache = localCache;
-        // 根据配置创建Caffeine builder
-        Caffeine<Object, Object> builder = Caffeine.newBuilder();
-        builder.initialCapacity(properties.getLocal().getInitialCapacity());
-        builder.maximumSize(properties.getLocal().getMaxSize());
-        //使用软引用存储value,当垃圾收集器需要释放内存时驱逐
-        builder.softValues();
-        if (ExpireMode.WRITE.equals(properties.getLocal().getExpireMode())) {
-            builder.expireAfterWrite(properties.getLocal().getExpireAfterWrite());
-        } else if (ExpireMode.ACCESS.equals(properties.getLocal().getExpireMode())) {
-            builder.expireAfterAccess(properties.getLocal().getExpireAfterAccess());
-        }else {
-
-        }
-        // 根据Caffeine builder创建 Cache 对象
-        this.locks = builder.build();
         this.cacheCircuitBreaker = cacheCircuitBreaker;
+        this.stripedLocks = new StripedLocks(properties.getLockStripes());
+        this.loadCosts =
+                Caffeine.newBuilder()
+                        .maximumSize(properties.getLocal().getMaxSize())
+                        .expireAfterWrite(properties.getTimeToLive())
+                        .build();
+        this.convertedKeys = Caffeine.newBuilder().maximumSize(properties.getLocal().getMaxSize()).build();
+        this.refreshExecutor = refreshExecutor;
+        this.evictPublisher = evictPublisher;
+        this.writeCoalescer =
+                properties.getWriteCoalescing().isEnabled()
+                        ? new RedisWriteCoalescer(properties.getWriteCoalescing(), this::writeBatch)
+                        : null;
+        if (ClearMode.GENERATION.equals(properties.getClear().getMode())) {
+            // 旧代际的键只能依靠过期时间删除
+            Duration ttl = getCacheConfiguration().getTtl();
+            if (ttl.isZero() || ttl.isNegative()) {
+                throw new IllegalArgumentException("Time to live must be positive when caches are cleared by generation");
+            }
+            this.rawGenerationKey =
+                    serializeCacheKey(getCacheConfiguration().getKeyPrefixFor(name) + GENERATION_KEY_SUFFIX);
+            // 断路器打开期间可能错过了代际通知，恢复后重新读取
+            cacheCircuitBreaker
+                    .getEventPublisher()
+                    .onStateTransition(
+                            event -> {
+                                if (CircuitBreaker.State.CLOSED.equals(event.getStateTransition().getToState())) {
+                                    syncGeneration();
+                                }
+                            });
+        } else {
+            this.rawGenerationKey = null;
+        }
 
     }
 
+    /**
+     * 把键转换为本地缓存和 Redis 使用的字符串
+     * String 键直接返回；重写了 equals/hashCode 的键（如 SimpleKey、包装类型）按键对象缓存转换结果，
+     * 其他键（按对象标识比较，缓存无法命中）每次都转换
+     * @param key
+     * @return
+     */
+    @Override
+    protected String convertKey(Object key) {
+        if (key instanceof String) return (String) key;
+        if (!VALUE_KEY_TYPES.get(key.getClass())) return super.convertKey(key);
+
+        String converted = convertedKeys.getIfPresent(key);
+        if (converted == null) {
+            converted = super.convertKey(key);
+            convertedKeys.put(key, converted);
+        }
+        return converted;
+    }
+
+    /**
+     * 创建 Redis 中的键，按代际清空时在键之前加上当前代际号
+     * 代际号尚未读取时从 Redis 读取，调用方需要在 {@link #callRedis} 中调用
+     * @param key
+     * @return
+     */
+    @Override
+    protected String createCacheKey(Object key) {
+        if (rawGenerationKey == null) return super.createCacheKey(key);
+        return super.createCacheKey(GENERATION_TAG + currentGeneration() + ':' + convertKey(key));
+    }
+
+    private long currentGeneration() {
+        long current = generation;
+        if (current < 0) return loadGeneration();
+
+        syncGenerationIfDue();
+        return current;
+    }
+
+    /**
+     * 距上次读取代际号超过 clear.generation-sync-interval 时在后台重新读取，读写 Redis 和本地缓存命中时调用
+     */
+    private void syncGenerationIfDue() {
+        if (rawGenerationKey == null) return;
+        final long syncInterval = properties.getClear().getGenerationSyncInterval().toNanos();
+        if (syncInterval > 0 && System.nanoTime() - generationSyncedAt > syncInterval) syncGeneration();
+    }
+
+    private synchronized long loadGeneration() {
+        if (generation < 0) {
+            generation = readGeneration();
+            log.trace("Cache {} uses generation {}", getName(), generation);
+        }
+        return generation;
+    }
+
+    private long readGeneration() {
+        byte[] raw =
+                redisTemplate.execute(
+                        (RedisCallback<byte[]>) connection -> connection.stringCommands().get(rawGenerationKey));
+        generationSyncedAt = System.nanoTime();
+        return generationOf(raw);
+    }
+
+    private static long generationOf(@Nullable byte[] raw) {
+        return raw == null ? 0 : Long.parseLong(new String(raw, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 按代际清空且尚未读取代际号时返回代际计数器在 Redis 中的键，由响应式接口以非阻塞方式读取
+     * @return  不需要读取时为 null
+     */
+    @Nullable
+    byte[] unloadedGenerationKey() {
+        return rawGenerationKey != null && generation < 0 ? rawGenerationKey : null;
+    }
+
+    /**
+     * 响应式接口读取代际计数器后调用，代际号尚未读取时使用读取的值
+     * @param raw  计数器的值，不存在时为 null
+     */
+    synchronized void generationLoaded(@Nullable byte[] raw) {
+        if (generation >= 0) return;
+        generation = generationOf(raw);
+        generationSyncedAt = System.nanoTime();
+        log.trace("Cache {} uses generation {}", getName(), generation);
+    }
+
+    /**
+     * 在后台刷新线程池中从 Redis 重新读取代际号，比当前的新时清空本地缓存
+     * 用于节点可能错过代际通知时：删除通知订阅重连、断路器恢复，以及距上次读取超过 clear.generation-sync-interval
+     */
+    public void syncGeneration() {
+        if (rawGenerationKey == null || generation < 0) return;
+
+        generationSyncedAt = System.nanoTime();
+        submitRefresh(
+                GENERATION_KEY_SUFFIX,
+                () -> callRedis(this::readGeneration).forEach(this::localAdvanceGeneration));
+    }
+
+    private synchronized boolean advanceGeneration(long newGeneration) {
+        if (newGeneration <= generation) return false;
+        generation = newGeneration;
+        return true;
+    }
+
+    /**
+     * Redis Pub/Sub 监听器收到其他节点按代际清空的通知时调用，代际号比当前的新时清空本地缓存
+     * @param newGeneration
+     */
+    public void localAdvanceGeneration(long newGeneration) {
+        if (advanceGeneration(newGeneration)) localInvalidateAll();
+    }
+
+    /**
+     * Redis 客户端缓存推送删除通知时调用，参数为去掉缓存前缀后的 Redis 键
+     * 按代际清空时，代际计数器被修改后重新读取代际号并清空本地缓存，其他键去掉代际号标记后从本地缓存删除
+     * @param redisKeys
+     */
+    public void localEvictRedisKeys(@NonNull Collection<String> redisKeys) {
+        if (rawGenerationKey == null) {
+            localEvictAll(redisKeys);
+            return;
+        }
+
+        List<String> localKeys = new ArrayList<>(redisKeys.size());
+        for (String redisKey : redisKeys) {
+            if (GENERATION_KEY_SUFFIX.equals(redisKey)) {
+                synchronized (this) {
+                    generation = -1;
+                }
+                localInvalidateAll();
+                continue;
+            }
+            int separator = redisKey.indexOf(':');
+            boolean tagged = redisKey.startsWith(GENERATION_TAG) && separator > 0;
+            localKeys.add(tagged ? redisKey.substring(separator + 1) : redisKey);
+        }
+        if (!localKeys.isEmpty()) localEvictAll(localKeys);
+    }
+
     /**
      * 获得本地Caffeine缓存
      * @return
@@ -95,6 +411,33 @@ public class JavafreeMultiLevelCache extends RedisCache {
    public Cache<Object, Object> getLocalCache() {
         return localCache;
     }
+
+    /**
+     * 获得 Redis 缓存值的压缩统计
+     * @return  未开启压缩时为 null
+     */
+    @Nullable
+    public CompressionStats getCompressionStats() {
+        return compressionStats;
+    }
+
+    /**
+     * 获得热点 key 识别
+     * @return  未开启热点 key 识别时为 null
+     */
+    @Nullable
+    public HotKeyTracker getHotKeyTracker() {
+        return hotKeyTracker;
+    }
+
+    /**
+     * 获得堆外缓存
+     * @return  未开启堆外缓存时为 null
+     */
+    @Nullable
+    public OffHeapStore getOffHeapStore() {
+        return offHeapStore;
+    }
     @Nullable
     @SuppressWarnings("unchecked")
     public <T> T nativeGet(@NonNull Object key) {
@@ -102,6 +445,7 @@ public class JavafreeMultiLevelCache extends RedisCache {
     }
 
     public void nativePut(@NonNull Object key, @Nullable Object value) {
+        flushPending(key);
         callRedis(() -> super.put(key, value));
     }
 
@@ -117,20 +461,275 @@ public class JavafreeMultiLevelCache extends RedisCache {
     @Override
     public Object lookup(@NonNull Object key) {
         final String localKey = convertKey(key);
+        // 在读取本地缓存之外的任何来源之前取得版本号
+        final long stamp = invalidationStamps.current();
+        Object localValue = lookupLocal(key, localKey, stamp);
+        if (localValue != null) return localValue == EVICTED ? null : localValue;
+
+        final long start = System.nanoTime();
+        return callRedis(() -> redisLookup(key, localKey))
+                .andThen(
+                        value -> {
+                            if (fillLocal(localKey, value, stamp)) recordLoadCost(localKey, start);
+                        })
+                .recover(e -> null)
+                .get();
+    }
+
+    /**
+     * 依次在本地缓存、合并写入缓冲区、热点 key 固定值和堆外缓存中查找，不访问 Redis
+     * @param key
+     * @param localKey
+     * @param stamp  查找前由 {@link #currentStamp()} 取得的失效版本号
+     * @return  存储值；缓冲区中有尚未写入的删除时为 {@link #EVICTED}；都未找到时为 null
+     */
+    @Nullable
+    Object lookupLocal(@NonNull Object key, @NonNull String localKey, long stamp) {
         Object localValue = localCache.getIfPresent(localKey);
+        final boolean hot = hotKeyTracker != null && hotKeyTracker.record(localKey);
+
+        if (localValue == null && writeCoalescer != null) {
+            // 缓冲区中尚未写入 Redis 的操作比 Redis 中的值更新
+            Object pending = writeCoalescer.pending(key);
+            if (pending != null) return pending;
+        }
+
+        if (localValue == null && hot) localValue = pinnedValue(localKey, stamp);
 
-        if (localValue == null) {
-            return callRedis(() -> super.lookup(key))
-                    .andThen(value -> localCache.put(localKey, value))
-                    .recover(e -> null)
-                    .get();
+        if (localValue == null && offHeapStore != null) {
+            byte[] offHeapValue = offHeapStore.get(localKey);
+            if (offHeapValue != null) {
+                localValue = deserializeCacheValue(offHeapValue);
+                fillLocal(localKey, localValue, stamp);
+                return localValue;
+            }
         }
 
+        if (localValue != null) {
+            if (hot) touchHotKey(key, localKey, localValue);
+            refreshIfNeeded(key, localKey, localValue);
+        }
         return localValue;
     }
 
+    /**
+     * 当前的本地缓存失效版本号，从本地缓存之外的来源读取前取得
+     * @return
+     */
+    long currentStamp() {
+        return invalidationStamps.current();
+    }
+
+    /**
+     * 反序列化从 Redis 读取的值，写入堆外缓存，并在读取期间键未失效时写入本地缓存
+     * @param localKey
+     * @param rawValue
+     * @param stamp  读取前由 {@link #currentStamp()} 取得的失效版本号
+     * @return  存储值
+     */
+    @NonNull
+    Object fillFromRedis(@NonNull String localKey, @NonNull byte[] rawValue, long stamp) {
+        Object storeValue = deserializeCacheValue(rawValue);
+        if (offHeapStore != null) offHeapStore.put(localKey, rawValue);
+        fillLocal(localKey, storeValue, stamp);
+        return storeValue;
+    }
+
+    /**
+     * 堆外条目的存活时间，不超过 Redis 中的存活时间；
+     * 本地缓存为 RANDOM 过期模式时，也不超过本地条目最短的逻辑过期时间，
+     * 否则从堆外存储读回本地缓存的值可能比 Redis 和本地缓存中的值存活更久
+     * @param properties
+     * @param redisTtl  Redis 中的存活时间，0 表示不过期
+     * @return
+     */
+    static Duration offHeapTimeToLive(@NonNull MultiLevelCacheProperties properties, @NonNull Duration redisTtl) {
+        Duration timeToLive = properties.getOffHeap().getTimeToLive();
+        if (!redisTtl.isZero() && !redisTtl.isNegative() && redisTtl.compareTo(timeToLive) < 0) {
+            timeToLive = redisTtl;
+        }
+        if (ExpireMode.RANDOM.equals(properties.getLocal().getExpireMode())) {
+            Duration localExpiry =
+                    Duration.ofNanos(
+                            (long) (properties.getTimeToLive().toNanos()
+                                    * (100 - properties.getLocal().getExpiryJitter()) / 200d));
+            if (localExpiry.compareTo(timeToLive) < 0) timeToLive = localExpiry;
+        }
+        return timeToLive;
+    }
+
+    /**
+     * 响应式接口使用的 Redis 中的键，不会同步读取代际号
+     * @param key
+     * @return  按代际清空且尚未读取代际号时为 null，需要先通过 {@link #unloadedGenerationKey()} 读取
+     */
+    @Nullable
+    byte[] rawKeyOf(@NonNull Object key) {
+        if (rawGenerationKey == null) return serializeCacheKey(createCacheKey(key));
+        final long current = generation;
+        if (current < 0) return null;
+
+        syncGenerationIfDue();
+        return serializeCacheKey(super.createCacheKey(GENERATION_TAG + current + ':' + convertKey(key)));
+    }
+
+    byte[] rawValueOf(@NonNull Object storeValue) {
+        return serializeCacheValue(storeValue);
+    }
+
+    /**
+     * 把值转换为存储值，空值转换为空值对象
+     * @param value
+     * @return
+     */
+    Object storeValueOf(@Nullable Object value) {
+        return toStoreValue(value);
+    }
+
+    /**
+     * 把存储值转换为值，空值对象转换为 null
+     * @param storeValue
+     * @return
+     */
+    @Nullable
+    Object valueOf(@Nullable Object storeValue) {
+        return fromStoreValue(storeValue);
+    }
+
+    /**
+     * 是否开启了合并写入，开启时写操作只进入缓冲区，不直接访问 Redis
+     * @return
+     */
+    boolean isCoalescingWrites() {
+        return writeCoalescer != null;
+    }
+
+    /**
+     * 编码单个键的删除通知，用于在 Redis 写入之外单独发送
+     * @param localKey
+     * @return  由 Redis 推送删除通知、不发布消息时为 null
+     */
+    @Nullable
+    byte[] evictMessageOf(@NonNull String localKey) {
+        if (!evictPublisher.isPublishing()) return null;
+        return evictPublisher.encode(new CacheEvictMessage(getName(), localKey));
+    }
+
+    /**
+     * 本地缓存未命中时返回热点 key 固定的值，并重新放入本地缓存
+     * @param localKey
+     * @param stamp  读取前取得的失效版本号
+     * @return  没有固定的值时为 null
+     */
+    @Nullable
+    private Object pinnedValue(@NonNull String localKey, long stamp) {
+        HotKeyTracker.Pinned pinned = hotKeyTracker.pinned(localKey);
+        if (pinned == null) return null;
+        fillLocal(localKey, pinned.storeValue, stamp);
+        return pinned.storeValue;
+    }
+
+    /**
+     * 把从 Redis、堆外缓存或固定值读取的值写入本地缓存，只在键不存在时写入，不覆盖其他线程写入的值
+     * @param localKey
+     * @param storeValue
+     * @param stamp  读取前由 {@link InvalidationStamps#current()} 取得的版本号
+     * @return  是否写入了本地缓存
+     */
+    private boolean fillLocal(@NonNull String localKey, @Nullable Object storeValue, long stamp) {
+        return fillLocal(localKey, storeValue, stamp, null);
+    }
+
+    /**
+     * 把读取的值写入本地缓存
+     * 读取期间键已经失效（收到删除通知）时不写入；写入后才失效的，由本方法删除刚写入的条目，
+     * 失效方先记录版本号再删除本地条目，因此两种顺序下旧值都不会留在本地缓存中。
+     * 本地写入在记录版本号和写入条目之间有间隔，在此期间开始的读取可能读到旧值且版本号检查通过，
+     * 因此只写入不存在的键，或替换刷新开始时的旧值，不覆盖读取期间写入的新值
+     * @param localKey
+     * @param storeValue
+     * @param stamp  读取前由 {@link InvalidationStamps#current()} 取得的版本号
+     * @param previous  后台刷新时被刷新的本地值，其余情况为 null
+     * @return  是否写入了本地缓存
+     */
+    private boolean fillLocal(
+            @NonNull String localKey, @Nullable Object storeValue, long stamp, @Nullable Object previous) {
+        if (storeValue == null) return false;
+        if (invalidationStamps.isCurrent(localKey, stamp)) {
+            ConcurrentMap<Object, Object> local = localCache.asMap();
+            boolean filled =
+                    (previous != null && local.replace(localKey, previous, storeValue))
+                            || local.putIfAbsent(localKey, storeValue) == null;
+            if (filled) {
+                if (invalidationStamps.isCurrent(localKey, stamp)) return true;
+                local.remove(localKey, storeValue);
+            }
+        }
+        log.trace("Key {} was invalidated or written while it was read, the value is not cached locally", localKey);
+        // 读取时可能同时写入了堆外缓存
+        if (offHeapStore != null) offHeapStore.remove(localKey);
+        return false;
+    }
+
+    /**
+     * 热点 key 命中时固定当前值，固定的值超过 refreshAfter 后在后台从 Redis 刷新
+     * @param key
+     * @param localKey
+     * @param localValue
+     */
+    private void touchHotKey(@NonNull Object key, @NonNull String localKey, @NonNull Object localValue) {
+        hotKeyTracker.pinIfAbsent(localKey, localValue);
+        HotKeyTracker.Pinned pinned = hotKeyTracker.pinned(localKey);
+        if (pinned != null && hotKeyTracker.needsRefresh(pinned)) {
+            log.trace("Hot key {} is refreshed in background", localKey);
+            submitRefresh(localKey, refreshTask(key, localKey, localValue, false));
+        }
+    }
+
+    /**
+     * 从 Redis 读取，开启堆外缓存时同时把读取的序列化数据写入堆外缓存
+     * @param key
+     * @param localKey
+     * @return
+     */
+    @Nullable
+    private Object redisLookup(@NonNull Object key, @NonNull String localKey) {
+        if (offHeapStore == null) return super.lookup(key);
+
+        byte[] value = getNativeCache().get(getName(), serializeCacheKey(createCacheKey(key)));
+        if (value == null) return null;
+        offHeapStore.put(localKey, value);
+        return deserializeCacheValue(value);
+    }
+
+    /**
+     * 写入本地缓存，堆外缓存中的旧值同时删除
+     * @param localKey
+     * @param storeValue
+     */
+    void putLocal(@NonNull String localKey, @NonNull Object storeValue) {
+        // 本地写入同样使之前开始的 Redis 读取失效
+        invalidationStamps.invalidate(localKey);
+        localCache.put(localKey, storeValue);
+        if (offHeapStore != null) offHeapStore.remove(localKey);
+        if (hotKeyTracker != null) hotKeyTracker.update(localKey, storeValue);
+    }
+
+    /**
+     * 删除本地缓存和堆外缓存中的键
+     * @param localKey
+     */
+    void invalidateLocal(@NonNull String localKey) {
+        invalidationStamps.invalidate(localKey);
+        localCache.invalidate(localKey);
+        if (offHeapStore != null) offHeapStore.remove(localKey);
+        if (hotKeyTracker != null) hotKeyTracker.unpin(localKey);
+    }
+
     /**
      * 返回此缓存映射指定键的值，从 valueLoader 获取该值
+     * 本地缓存命中时直接返回，不加锁；未命中时按键加锁，同一个键的并发请求只调用一次 valueLoader，
+     * 不同键之间互不阻塞。
      * 如果 Redis 无法查询，{@code valueLoader} 仍然会被执行并且 value 会被
      * 存储在本地缓存中。
      * @param key  关联值的键
@@ -139,26 +738,481 @@ public class JavafreeMultiLevelCache extends RedisCache {
      * @return  返回指定键映射到的值
      */
     @Override
-    @NonNull
     @SuppressWarnings("unchecked")
-    public synchronized <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
-        Object result = lookup(key);
-        if (result != null) return (T) result;
-
+    public <T> T get(@NonNull Object key, @NonNull Callable<T> valueLoader) {
         final String localKey = convertKey(key);
-        return callRedis(() -> super.get(key, valueLoader))
-                .andThen(value -> localCache.put(localKey, value))
-                .recover(
-                        e -> {
-                            try {
-                                T value = valueLoader.call();
-                                localCache.put(localKey, value);
-                                return value;
-                            } catch (Exception recoverException) {
-                                throw new ValueRetrievalException(key, valueLoader, recoverException);
-                            }
-                        })
-                .get();
+        final long stamp = invalidationStamps.current();
+        Object localValue = localCache.getIfPresent(localKey);
+        final boolean hot = hotKeyTracker != null && hotKeyTracker.record(localKey);
+        if (localValue == null && hot) localValue = pinnedValue(localKey, stamp);
+        if (localValue != null) {
+            if (hot) touchHotKey(key, localKey, localValue);
+            refreshIfNeeded(key, localKey, localValue);
+            return (T) fromStoreValue(localValue);
+        }
+
+        final KeyLockTable.KeyLock lock = locks.lock(key);
+
+        try {
+            // 等待锁期间其他线程可能已经加载完成
+            Object result = lookup(key);
+            if (result != null) return (T) fromStoreValue(result);
+
+            final long start = System.nanoTime();
+            T value =
+                    properties.getDistributedLock().isEnabled()
+                            ? loadWithDistributedLock(key, valueLoader)
+                            : loadAndStore(key, valueLoader);
+            putLocal(localKey, toStoreValue(value));
+            recordLoadCost(localKey, start);
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 调用 valueLoader 加载值并写入 Redis
+     * @param key
+     * @param valueLoader
+     * @param <T>
+     * @return
+     */
+    private <T> T loadAndStore(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        T value = loadValue(key, valueLoader);
+        flushPending(key);
+        callRedis(() -> super.put(key, value));
+        return value;
+    }
+
+    /**
+     * 直接写 Redis 之前先写入合并写入缓冲区中该键尚未写入的操作，否则之后写入的批次会覆盖直接写入的结果
+     * @param key
+     */
+    private void flushPending(@NonNull Object key) {
+        if (writeCoalescer != null) writeCoalescer.flushKey(key);
+    }
+
+    /**
+     * 在 Redis 分布式锁保护下加载值，保证整个集群只有一个节点调用 valueLoader
+     * 未获得锁的节点在 waitTime 内轮询 Redis，超时、Redis 不可用或断路器打开时退回本地加载
+     * @param key
+     * @param valueLoader
+     * @param <T>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T loadWithDistributedLock(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        final DistributedLockProperties lockProperties = properties.getDistributedLock();
+        // 按代际清空时创建键可能需要读取 Redis
+        final String lockKey = Try.of(() -> createCacheKey(key) + LOCK_KEY_SUFFIX).getOrNull();
+        if (lockKey == null) return loadAndStore(key, valueLoader);
+        final String token = UUID.randomUUID().toString();
+
+        Boolean acquired =
+                callRedis(
+                        () ->
+                                redisTemplate
+                                        .opsForValue()
+                                        .setIfAbsent(lockKey, token, lockProperties.getLeaseTime()))
+                        .recover(e -> null)
+                        .get();
+
+        if (acquired == null) {
+            return loadAndStore(key, valueLoader);
+        }
+
+        if (acquired) {
+            try {
+                // 获得锁之前其他节点可能已经写入
+                Object result = callRedis(() -> super.lookup(key)).recover(e -> null).get();
+                if (result != null) return (T) fromStoreValue(result);
+                return loadAndStore(key, valueLoader);
+            } finally {
+                callRedis(
+                        () ->
+                                redisTemplate.execute(
+                                        RELEASE_LOCK_SCRIPT, Collections.singletonList(lockKey), token));
+            }
+        }
+
+        final long deadline = System.nanoTime() + lockProperties.getWaitTime().toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(lockProperties.getRetryInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            Try<Object> result = callRedis(() -> super.lookup(key));
+            if (result.isFailure()) break;
+            if (result.get() != null) return (T) fromStoreValue(result.get());
+        }
+
+        log.debug("Distributed load lock {} was not released in time, loading value locally", lockKey);
+        return loadAndStore(key, valueLoader);
+    }
+
+    /**
+     * 本地缓存命中后判断是否需要后台刷新，调用方始终立即得到当前值
+     * 过期宽限期：条目超过逻辑过期时间但仍在宽限期内时视为过期值，立即返回并在后台刷新
+     * 提前刷新（XFetch）：条目临近逻辑过期时按概率刷新，刷新概率随剩余存活时间减少而增大，加载耗时越长越早刷新
+     * 刷新只从 Redis 重新读取到本地缓存，不会在刷新线程上重放调用方的 valueLoader，
+     * valueLoader 可能依赖调用线程上的事务、安全上下文或请求作用域
+     * 按代际清空时顺带检查是否需要重新读取代际号
+     * @param key
+     * @param localKey
+     * @param localValue  命中的本地值
+     */
+    private void refreshIfNeeded(@NonNull Object key, @NonNull String localKey, @NonNull Object localValue) {
+        syncGenerationIfDue();
+        final RefreshProperties refresh = properties.getRefresh();
+        final Duration gracePeriod = refresh.getStaleGracePeriod();
+        if (!refresh.isEarlyEnabled() && gracePeriod.isZero()) return;
+
+        Optional<Duration> expiresAfter = localExpiresAfter(localKey);
+        if (!expiresAfter.isPresent()) return;
+
+        // 本地缓存的实际过期时间包含宽限期，扣除后为逻辑剩余存活时间
+        long remaining = expiresAfter.get().minus(gracePeriod).toNanos();
+        if (remaining <= 0) {
+            log.trace("Key {} is stale, serving local value while refreshing", localKey);
+            submitRefresh(localKey, refreshTask(key, localKey, localValue, true));
+            return;
+        }
+
+        if (!refresh.isEarlyEnabled()) return;
+        Long loadCost = loadCosts.getIfPresent(localKey);
+        if (loadCost == null) return;
+
+        double gap = -loadCost * refresh.getBeta() * Math.log(ThreadLocalRandom.current().nextDouble());
+        if (gap < remaining) return;
+
+        log.trace("Key {} is refreshed early, expires in {}ns", localKey, remaining);
+        submitRefresh(localKey, refreshTask(key, localKey, localValue, false));
+    }
+
+    /**
+     * 从 Caffeine 过期策略中获得本地条目的剩余存活时间
+     * @param localKey
+     * @return
+     */
+    private Optional<Duration> localExpiresAfter(@NonNull String localKey) {
+        Policy<Object, Object> policy = localCache.policy();
+        Optional<Policy.VarExpiration<Object, Object>> variable = policy.expireVariably();
+        if (variable.isPresent()) return variable.get().getExpiresAfter(localKey);
+
+        Optional<Policy.FixedExpiration<Object, Object>> fixed = policy.expireAfterWrite();
+        if (!fixed.isPresent()) fixed = policy.expireAfterAccess();
+        return fixed.flatMap(
+                expiration ->
+                        expiration.ageOf(localKey).map(age -> expiration.getExpiresAfter().minus(age)));
+    }
+
+    /**
+     * 创建刷新任务：从 Redis 重新读取，成功后更新本地缓存
+     * Redis 中的值已经过期时，过期的本地值被删除，下一次读取由调用方在自己的线程上加载
+     * @param key
+     * @param localKey
+     * @param localValue  被刷新的本地值，从 Redis 重新读取后只替换该值
+     * @param stale  本地值是否已超过逻辑过期时间
+     * @return
+     */
+    private Runnable refreshTask(
+            @NonNull Object key, @NonNull String localKey, @NonNull Object localValue, boolean stale) {
+        return () -> {
+            final long start = System.nanoTime();
+            final long stamp = invalidationStamps.current();
+            Try<Object> result = callRedis(() -> redisLookup(key, localKey));
+            Object value = result.getOrNull();
+            if (value != null) {
+                if (fillLocal(localKey, value, stamp, localValue) && hotKeyTracker != null) {
+                    hotKeyTracker.update(localKey, value);
+                }
+                recordLoadCost(localKey, start);
+            } else if (result.isSuccess()) {
+                // Redis 中的值已经过期，不再保留固定的值
+                if (hotKeyTracker != null) hotKeyTracker.unpin(localKey);
+                if (stale) localCache.asMap().remove(localKey, localValue);
+            }
+        };
+    }
+
+    /**
+     * 在后台刷新线程池中执行刷新任务，同一个键同时只有一个刷新任务，线程池已满时放弃本次刷新
+     * @param localKey
+     * @param refresh
+     */
+    private void submitRefresh(@NonNull String localKey, @NonNull Runnable refresh) {
+        if (!refreshingKeys.add(localKey)) return;
+
+        try {
+            refreshExecutor.execute(
+                    () -> {
+                        try {
+                            refresh.run();
+                        } catch (RuntimeException e) {
+                            log.debug("Background refresh of key {} failed", localKey, e);
+                        } finally {
+                            refreshingKeys.remove(localKey);
+                        }
+                    });
+        } catch (RejectedExecutionException e) {
+            refreshingKeys.remove(localKey);
+            log.trace("Background refresh of key {} was rejected", localKey);
+        }
+    }
+
+    /**
+     * 记录加载耗时，仅在开启提前刷新时记录
+     * @param localKey
+     * @param start
+     */
+    private void recordLoadCost(@NonNull String localKey, long start) {
+        if (properties.getRefresh().isEarlyEnabled()) {
+            loadCosts.put(localKey, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 调用 valueLoader 加载值，异常统一包装为 {@link ValueRetrievalException}
+     * @param key
+     * @param valueLoader
+     * @param <T>
+     * @return
+     */
+    private <T> T loadValue(@NonNull Object key, @NonNull Callable<T> valueLoader) {
+        try {
+            return valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    /**
+     * 批量查找，先从本地缓存取值，其余的键通过一次 MGET 从 Redis 读取并写入本地缓存
+     * 缓存中不存在或缓存值为空值的键不出现在返回结果中
+     * @param keys  要查找的键
+     * @return  键与值的映射，按传入键的顺序排列
+     */
+    public Map<Object, Object> getAll(@NonNull Collection<?> keys) {
+        Map<Object, Object> storeValues = lookupAll(keys);
+        Map<Object, Object> result = new LinkedHashMap<>(storeValues.size());
+        storeValues.forEach(
+                (key, storeValue) -> {
+                    Object value = fromStoreValue(storeValue);
+                    if (value != null) result.put(key, value);
+                });
+        return result;
+    }
+
+    /**
+     * 批量获取，先从本地缓存和 Redis（一次 MGET）取值，仍然缺失的键通过一次 bulkLoader 调用加载，
+     * 加载结果写入本地缓存，并通过一次管道批量写入 Redis。
+     * 允许存储空值时，bulkLoader 没有返回的键以空值缓存，防止缓存穿透。
+     * @param keys  要获取的键
+     * @param bulkLoader  加载缺失键的方法，参数为缺失的键
+     * @param <K>
+     * @param <V>
+     * @return  键与值的映射，按传入键的顺序排列，值为空的键不出现在结果中
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> Map<K, V> getAll(
+            @NonNull Collection<K> keys, @NonNull Function<Collection<K>, Map<K, V>> bulkLoader) {
+        Map<Object, Object> storeValues = lookupAll(keys);
+
+        List<K> missingKeys = new ArrayList<>();
+        for (K key : keys) {
+            if (!storeValues.containsKey(key)) missingKeys.add(key);
+        }
+
+        if (!missingKeys.isEmpty()) {
+            Map<K, V> loaded = bulkLoader.apply(Collections.unmodifiableList(missingKeys));
+            Map<Object, Object> loadedStoreValues = new LinkedHashMap<>(missingKeys.size());
+            for (K key : missingKeys) {
+                V value = loaded == null ? null : loaded.get(key);
+                if (value != null || isAllowNullValues()) {
+                    loadedStoreValues.put(key, toStoreValue(value));
+                }
+            }
+            putAllStoreValues(loadedStoreValues);
+            storeValues.putAll(loadedStoreValues);
+        }
+
+        Map<K, V> result = new LinkedHashMap<>(keys.size());
+        for (K key : keys) {
+            Object value = fromStoreValue(storeValues.get(key));
+            if (value != null) result.put(key, (V) value);
+        }
+        return result;
+    }
+
+    /**
+     * 批量查找缓存中存储的值（可能为空值对象），本地缓存未命中的键通过一次 MGET 读取
+     * 合并写入缓冲区中有尚未写入的删除的键视为未命中，不读取 Redis 中已经过时的值
+     * @param keys
+     * @return
+     */
+    private Map<Object, Object> lookupAll(@NonNull Collection<?> keys) {
+        Map<Object, Object> storeValues = new LinkedHashMap<>(keys.size());
+        List<Object> remoteKeys = new ArrayList<>();
+        final long stamp = invalidationStamps.current();
+        for (Object key : keys) {
+            Object localValue = lookupLocal(key, convertKey(key), stamp);
+            if (localValue == null) remoteKeys.add(key);
+            else if (localValue != EVICTED) storeValues.put(key, localValue);
+        }
+
+        if (remoteKeys.isEmpty()) return storeValues;
+
+        List<byte[]> rawValues =
+                callRedis(
+                                () -> {
+                                    final byte[][] rawKeys = new byte[remoteKeys.size()][];
+                                    for (int i = 0; i < rawKeys.length; i++) {
+                                        rawKeys[i] = serializeCacheKey(createCacheKey(remoteKeys.get(i)));
+                                    }
+                                    return redisTemplate.execute(
+                                            (RedisCallback<List<byte[]>>)
+                                                    connection -> connection.stringCommands().mGet(rawKeys));
+                                })
+                        .recover(e -> null)
+                        .get();
+        if (rawValues == null) return storeValues;
+
+        for (int i = 0; i < remoteKeys.size() && i < rawValues.size(); i++) {
+            byte[] rawValue = rawValues.get(i);
+            if (rawValue == null) continue;
+
+            Object key = remoteKeys.get(i);
+            final String localKey = convertKey(key);
+            Object storeValue = deserializeCacheValue(rawValue);
+            storeValues.put(key, storeValue);
+            if (offHeapStore != null) offHeapStore.put(localKey, rawValue);
+            fillLocal(localKey, storeValue, stamp);
+        }
+        return storeValues;
+    }
+
+    /**
+     * 将存储值批量写入本地缓存，并通过一次管道写入 Redis
+     * @param storeValues
+     */
+    private void putAllStoreValues(@NonNull Map<?, ?> storeValues) {
+        if (storeValues.isEmpty()) return;
+
+        Map<String, Object> localValues = new HashMap<>(storeValues.size());
+        storeValues.forEach((key, storeValue) -> localValues.put(convertKey(key), storeValue));
+        localValues.keySet().forEach(invalidationStamps::invalidate);
+        localCache.putAll(localValues);
+        if (offHeapStore != null) offHeapStore.removeAll(localValues.keySet());
+        if (hotKeyTracker != null) localValues.forEach(hotKeyTracker::update);
+        writeBatch(storeValues);
+    }
+
+    /**
+     * 批量写入，值为 {@code null} 的键将被删除
+     * 本地缓存立即更新，Redis 写入与删除通知通过一次管道完成，开启合并写入时进入缓冲区
+     * @param entries
+     */
+    public void putAll(@NonNull Map<?, ?> entries) {
+        Map<Object, Object> operations = new LinkedHashMap<>(entries.size());
+        entries.forEach(
+                (key, value) -> {
+                    final String localKey = convertKey(key);
+                    if (value == null) {
+                        invalidateLocal(localKey);
+                        operations.put(key, EVICTED);
+                    } else {
+                        putLocal(localKey, value);
+                        operations.put(key, value);
+                    }
+                });
+        writeRedis(operations);
+    }
+
+    /**
+     * 批量删除，本地缓存立即删除，Redis 删除与删除通知通过一次管道完成，开启合并写入时进入缓冲区
+     * @param keys
+     */
+    public void evictAll(@NonNull Collection<?> keys) {
+        Map<Object, Object> operations = new LinkedHashMap<>(keys.size());
+        for (Object key : keys) {
+            invalidateLocal(convertKey(key));
+            operations.put(key, EVICTED);
+        }
+        writeRedis(operations);
+    }
+
+    /**
+     * 立即写入合并缓冲区中尚未写入 Redis 的操作
+     */
+    public void flushWrites() {
+        if (writeCoalescer != null) writeCoalescer.flush();
+    }
+
+    /**
+     * 写入 Redis，开启合并写入时进入缓冲区，否则立即通过一次管道写入
+     * @param operations  键与存储值的映射，值为 {@link #EVICTED} 表示删除
+     */
+    private void writeRedis(@NonNull Map<Object, Object> operations) {
+        if (operations.isEmpty()) return;
+
+        if (writeCoalescer != null) {
+            operations.forEach(writeCoalescer::add);
+        } else {
+            writeBatch(operations);
+        }
+    }
+
+    /**
+     * 通过一次管道执行批量写入（PSETEX）、删除（DEL），并为删除的键发送一条批量删除通知（以 JSON 格式发送时每个键一条）
+     * @param operations  键与存储值的映射，值为 {@link #EVICTED} 表示删除
+     */
+    private void writeBatch(@NonNull Map<?, ?> operations) {
+        if (operations.isEmpty()) return;
+
+        final Duration ttl = getCacheConfiguration().getTtl();
+        final byte[] rawTopic = evictPublisher.getRawTopic();
+        final List<String> evictedKeys = new ArrayList<>();
+        operations.forEach(
+                (key, storeValue) -> {
+                    if (storeValue == EVICTED) evictedKeys.add(convertKey(key));
+                });
+        final List<byte[]> rawMessages =
+                evictedKeys.isEmpty() || !evictPublisher.isPublishing()
+                        ? Collections.emptyList()
+                        : evictPublisher.encodeAll(
+                                CacheEvictMessage.batch(Collections.singletonMap(getName(), evictedKeys)));
+
+        callRedis(
+                () -> {
+                    final Map<byte[], byte[]> rawEntries = new LinkedHashMap<>(operations.size());
+                    operations.forEach(
+                            (key, storeValue) ->
+                                    rawEntries.put(
+                                            serializeCacheKey(createCacheKey(key)),
+                                            storeValue == EVICTED ? null : serializeCacheValue(storeValue)));
+                    return redisTemplate.executePipelined(
+                            (RedisCallback<Object>)
+                                    connection -> {
+                                        rawEntries.forEach(
+                                                (rawKey, rawValue) -> {
+                                                    if (rawValue == null) {
+                                                        connection.keyCommands().del(rawKey);
+                                                    } else if (ttl.isZero() || ttl.isNegative()) {
+                                                        connection.stringCommands().set(rawKey, rawValue);
+                                                    } else {
+                                                        connection
+                                                                .stringCommands()
+                                                                .pSetEx(rawKey, ttl.toMillis(), rawValue);
+                                                    }
+                                                });
+                                        rawMessages.forEach(rawMessage -> connection.publish(rawTopic, rawMessage));
+                                        return null;
+                                    });
+                });
     }
 
     /**
@@ -173,8 +1227,12 @@ public class JavafreeMultiLevelCache extends RedisCache {
             return;
         }
 
-        localCache.put(convertKey(key), value);
-        callRedis(() -> super.put(key, value));
+        putLocal(convertKey(key), value);
+        if (writeCoalescer != null) {
+            writeCoalescer.add(key, value);
+        } else {
+            callRedis(() -> super.put(key, value));
+        }
     }
 
     /**
@@ -192,14 +1250,13 @@ public class JavafreeMultiLevelCache extends RedisCache {
             return null;
         }
 
-        final ReentrantLock lock = makeLock(key);
+        final ReentrantLock lock = stripedLocks.lock(key);
 
         try {
-            lock.lock();
-
             Object existingValue = lookup(key);
             if (existingValue == null) {
-                localCache.put(convertKey(key), value);
+                putLocal(convertKey(key), value);
+                flushPending(key);
                 callRedis(() -> super.putIfAbsent(key, value));
                 return null;
             } else {
@@ -216,21 +1273,38 @@ public class JavafreeMultiLevelCache extends RedisCache {
      */
     @Override
     public void evict(@NonNull Object key) {
+        if (writeCoalescer != null) {
+            invalidateLocal(convertKey(key));
+            writeCoalescer.add(key, EVICTED);
+            return;
+        }
         sendViaRedis(localEvict(key));
     }
 
     /**
-     * Redis Pub/Sub 监听器的 {@link #evict(Object)} 方法的本地副本以避免无限循环消息
+     * 删除本地缓存和 Redis 中的键，但不发送删除通知
      * @param key
      * @return
      */
     public String localEvict(@NonNull Object key) {
         final String localKey = convertKey(key);
-        localCache.invalidate(localKey);
+        invalidateLocal(localKey);
+        flushPending(key);
         callRedis(() -> super.evict(key));
         return localKey;
     }
 
+    /**
+     * Redis Pub/Sub 监听器收到其他节点的删除通知时调用，只删除本地缓存中的键，不访问 Redis
+     * @param localKeys
+     */
+    public void localEvictAll(@NonNull Collection<String> localKeys) {
+        localKeys.forEach(invalidationStamps::invalidate);
+        localCache.invalidateAll(localKeys);
+        if (offHeapStore != null) offHeapStore.removeAll(localKeys);
+        if (hotKeyTracker != null) hotKeyTracker.unpinAll(localKeys);
+    }
+
     /**
      * 如果此缓存存在，则从此缓存中逐出此键的映射
      * @param key
@@ -238,15 +1312,14 @@ public class JavafreeMultiLevelCache extends RedisCache {
      */
     @Override
     public boolean evictIfPresent(@NonNull Object key) {
-        final ReentrantLock lock = makeLock(key);
+        final ReentrantLock lock = stripedLocks.lock(key);
 
         try {
-            lock.lock();
-
             final String localKey = convertKey(key);
             boolean haveLocalMapping = localCache.getIfPresent(localKey) != null;
 
-            localCache.invalidate(localKey);
+            invalidateLocal(localKey);
+            flushPending(key);
             callRedis(() -> super.evict(key));
             sendViaRedis(localKey);
 
@@ -262,15 +1335,26 @@ public class JavafreeMultiLevelCache extends RedisCache {
     @Override
     public void clear() {
         localClear();
-        sendViaRedis(null);
+        sendClear();
     }
 
     /**
-     * 用于 Redis Pub/Sub 侦听器的 {@link #clear()} 方法的本地副本，以避免无限消息循环
+     * 清空本地缓存和 Redis 中的缓存，但不发送删除通知
      */
     public void localClear() {
+        if (writeCoalescer != null) writeCoalescer.discard();
+        localInvalidateAll();
+        callRedis(this::clearRedis);
+    }
+
+    /**
+     * 只清空本地缓存和堆外缓存，用于收到其他节点的清空通知、Redis 推送的全部删除通知或推送连接重连时
+     */
+    public void localInvalidateAll() {
+        invalidationStamps.invalidateAll();
         localCache.invalidateAll();
-        callRedis(super::clear);
+        if (offHeapStore != null) offHeapStore.clear();
+        if (hotKeyTracker != null) hotKeyTracker.unpinAll();
     }
 
     /**
@@ -279,16 +1363,15 @@ public class JavafreeMultiLevelCache extends RedisCache {
      */
     @Override
     public boolean invalidate() {
-        final ReentrantLock lock = makeLock(CACHE_WIDE_LOCK_OBJECT);
+        final ReentrantLock lock = stripedLocks.lock(CACHE_WIDE_LOCK_OBJECT);
 
         try {
-            lock.lock();
-
             boolean hadLocalMappings = localCache.estimatedSize() > 0;
 
-            localCache.invalidateAll();
-            callRedis(super::clear);
-            sendViaRedis(null);
+            if (writeCoalescer != null) writeCoalescer.discard();
+            localInvalidateAll();
+            callRedis(this::clearRedis);
+            sendClear();
 
             return hadLocalMappings;
         } finally {
@@ -296,6 +1379,56 @@ public class JavafreeMultiLevelCache extends RedisCache {
         }
     }
 
+    /**
+     * 删除 Redis 中本缓存的所有键
+     * 按代际清空时只递增代际计数器；否则通过 SCAN 分批查找并用 UNLINK 删除，每批最多 clear.batchSize 个键，
+     * 不会像 KEYS 一样长时间阻塞 Redis，内存在 Redis 后台线程中释放。集群连接不支持跨节点 SCAN，仍使用 {@link RedisCache#clear()}
+     */
+    private void clearRedis() {
+        if (rawGenerationKey != null) {
+            Long next =
+                    redisTemplate.execute(
+                            (RedisCallback<Long>) connection -> connection.stringCommands().incr(rawGenerationKey));
+            if (next != null) localAdvanceGeneration(next);
+            return;
+        }
+
+        final byte[] pattern = serializeCacheKey(createCacheKey("*"));
+        final int batchSize = properties.getClear().getBatchSize();
+        Long deleted =
+                redisTemplate.execute(
+                        (RedisCallback<Long>)
+                                connection ->
+                                        connection instanceof RedisClusterConnection
+                                                ? null
+                                                : unlinkMatching(connection, pattern, batchSize));
+        if (deleted == null) super.clear();
+        else log.trace("Cleared cache {}, {} keys deleted from Redis", getName(), deleted);
+    }
+
+    private static long unlinkMatching(
+            @NonNull RedisConnection connection, @NonNull byte[] pattern, int batchSize) {
+        final ScanOptions options = ScanOptions.scanOptions().match(pattern).count(batchSize).build();
+        final List<byte[]> batch = new ArrayList<>(batchSize);
+        long deleted = 0;
+        try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= batchSize) {
+                    deleted += unlink(connection, batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) deleted += unlink(connection, batch);
+        return deleted;
+    }
+
+    private static long unlink(@NonNull RedisConnection connection, @NonNull List<byte[]> keys) {
+        Long count = connection.keyCommands().unlink(keys.toArray(new byte[0][]));
+        return count == null ? 0 : count;
+    }
+
     /**
      * 执行Redis操作方法
      * @param call
@@ -315,21 +1448,18 @@ public class JavafreeMultiLevelCache extends RedisCache {
     }
 
     private void sendViaRedis(@Nullable String key) {
-        Try.runRunnable(
-                cacheCircuitBreaker.decorateRunnable(
-                        () ->
-                                redisTemplate.convertAndSend(
-                                        properties.getTopic(), new CacheEvictMessage(getName(), key))));
+        evictPublisher.publish(getName(), key);
     }
 
     /**
-     * 获得一个用于同步操作对象的锁
-     * @param key
-     * @return
+     * 发送清空通知，按代际清空时发送新的代际号
      */
-    @NonNull
-    private ReentrantLock makeLock(@NonNull Object key) {
-        return Objects.requireNonNull(
-                locks.get(key, o -> new ReentrantLock()), LOCK_WAS_NOT_INITIALIZED);
+    private void sendClear() {
+        long current = generation;
+        if (rawGenerationKey != null && current >= 0) {
+            evictPublisher.publishGeneration(getName(), current);
+        } else {
+            sendViaRedis(null);
+        }
     }
 }
@@ -2,21 +2,40 @@ package com.javafree.cloud.cache.support;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Weigher;
 import com.javafree.cloud.cache.enums.ExpireMode;
+import com.javafree.cloud.cache.enums.ReferenceMode;
+import com.javafree.cloud.cache.enums.WeigherType;
 import com.javafree.cloud.cache.properties.MultiLevelCacheProperties;
+import com.javafree.cloud.cache.properties.RefreshProperties;
+import com.javafree.cloud.cache.serializer.RedisValueSerializers;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import lombok.extern.slf4j.Slf4j;
 import org.checkerframework.checker.index.qual.NonNegative;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.cache.CacheProperties;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.util.unit.DataSize;
 
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * @version V1.0
@@ -25,19 +44,65 @@ import java.util.concurrent.ConcurrentHashMap;
  * @Date 2022/8/2 17:25
  */
 @Slf4j
-public class JavafreeMultiLevelCacheManager implements CacheManager {
+public class JavafreeMultiLevelCacheManager implements CacheManager, DisposableBean {
     private final Set<String> requestedCacheNames;
     private final MultiLevelCacheProperties properties;
     private final RedisTemplate<Object, Object> redisTemplate;
     private final CircuitBreaker circuitBreaker;
+    // 自定义的本地缓存 Weigher，未设置时为 null
+    private final Weigher<Object, Object> localWeigher;
 
     private final Map<String, Cache> availableCaches;
 
+    // 所有缓存共用的后台刷新线程池
+    private final ThreadPoolExecutor refreshExecutor;
+    // 所有缓存共用的删除通知发送器
+    private final CacheEvictPublisher evictPublisher;
+
+    // 当前节点标识，写入发出的删除通知
+    private final String nodeId;
+
+    // 新建缓存时的回调
+    private final List<Consumer<JavafreeMultiLevelCache>> cacheListeners = new CopyOnWriteArrayList<>();
+
+    // 已创建的响应式缓存
+    private final Map<String, ReactiveMultiLevelCache> reactiveCaches = new ConcurrentHashMap<>();
+    // 响应式缓存共用的 RedisTemplate，第一次获取响应式缓存时创建
+    private volatile ReactiveRedisTemplate<byte[], byte[]> reactiveRedisTemplate;
+
     public JavafreeMultiLevelCacheManager(
             ObjectProvider<CacheProperties> highLevelProperties,
             MultiLevelCacheProperties properties,
             RedisTemplate<Object, Object> redisTemplate,
             CircuitBreaker circuitBreaker) {
+        this(
+                highLevelProperties,
+                properties,
+                redisTemplate,
+                circuitBreaker,
+                new CacheEvictMessageSerializer(
+                        redisTemplate.getValueSerializer(), properties.getInvalidation().isBinaryFormat()));
+    }
+
+    public JavafreeMultiLevelCacheManager(
+            ObjectProvider<CacheProperties> highLevelProperties,
+            MultiLevelCacheProperties properties,
+            RedisTemplate<Object, Object> redisTemplate,
+            CircuitBreaker circuitBreaker,
+            CacheEvictMessageSerializer evictMessageSerializer) {
+        this(highLevelProperties, properties, redisTemplate, circuitBreaker, evictMessageSerializer, null);
+    }
+
+    /**
+     * @param localWeigher  按内存容量限制本地缓存时使用的 Weigher，为 null 时按 local.weigher 配置创建
+     */
+    public JavafreeMultiLevelCacheManager(
+            ObjectProvider<CacheProperties> highLevelProperties,
+            MultiLevelCacheProperties properties,
+            RedisTemplate<Object, Object> redisTemplate,
+            CircuitBreaker circuitBreaker,
+            CacheEvictMessageSerializer evictMessageSerializer,
+            @Nullable Weigher<Object, Object> localWeigher) {
         CacheProperties hlp = highLevelProperties.getIfAvailable();
         this.requestedCacheNames =
                 hlp == null
@@ -47,8 +112,19 @@ public class JavafreeMultiLevelCacheManager implements CacheManager {
         this.properties = properties;
         this.redisTemplate = redisTemplate;
         this.circuitBreaker = circuitBreaker;
+        this.localWeigher = localWeigher;
 
         this.availableCaches = new ConcurrentHashMap<>();
+        this.refreshExecutor = createRefreshExecutor(properties.getRefresh());
+        this.nodeId = UUID.randomUUID().toString();
+        this.evictPublisher =
+                new CacheEvictPublisher(
+                        redisTemplate,
+                        properties.getTopic(),
+                        properties.getInvalidation(),
+                        circuitBreaker,
+                        evictMessageSerializer,
+                        nodeId);
 
         this.requestedCacheNames.forEach(this::getCache);
     }
@@ -61,6 +137,49 @@ public class JavafreeMultiLevelCacheManager implements CacheManager {
         return circuitBreaker;
     }
 
+    /**
+     * 当前节点标识，每个缓存管理器实例启动时随机生成
+     * @return
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 创建有界的后台刷新线程池，队列满时拒绝任务，由调用方放弃本次刷新
+     * @param refresh
+     * @return
+     */
+    private static ThreadPoolExecutor createRefreshExecutor(@NonNull RefreshProperties refresh) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor =
+                new ThreadPoolExecutor(
+                        refresh.getThreads(),
+                        refresh.getThreads(),
+                        60L,
+                        TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(refresh.getQueueCapacity()),
+                        runnable -> {
+                            Thread thread =
+                                    new Thread(runnable, "multilevel-cache-refresh-" + threadNumber.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        },
+                        new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 写入合并缓冲区中剩余的操作，发送合并中的删除通知，关闭后台刷新线程池
+     */
+    @Override
+    public void destroy() {
+        availableCaches.values().forEach(cache -> ((JavafreeMultiLevelCache) cache).flushWrites());
+        evictPublisher.flush();
+        refreshExecutor.shutdownNow();
+    }
+
 
     /**
      * 获取或创建与给定名称关联的缓存
@@ -77,28 +196,117 @@ public class JavafreeMultiLevelCacheManager implements CacheManager {
         return availableCaches.computeIfAbsent(
                 name,
                 key -> {
+                    // 全局配置与 caches.<name> 中单独设置合并后的配置
+                    MultiLevelCacheProperties cacheProperties = properties.forCache(key);
                     // 根据配置创建Caffeine builder
                     Caffeine<Object, Object> builder = Caffeine.newBuilder();
-                    builder.initialCapacity(properties.getLocal().getInitialCapacity());
-                    builder.maximumSize(properties.getLocal().getMaxSize());
-                    builder.softValues();
-                    if (ExpireMode.WRITE.equals(properties.getLocal().getExpireMode())) {
-                        builder.expireAfterWrite(properties.getLocal().getExpireAfterWrite());
-                    } else if (ExpireMode.ACCESS.equals(properties.getLocal().getExpireMode())) {
-                        builder.expireAfterAccess(properties.getLocal().getExpireAfterAccess());
+                    builder.initialCapacity(cacheProperties.getLocal().getInitialCapacity());
+                    DataSize maxWeight = cacheProperties.getLocal().getMaxWeight();
+                    if (maxWeight == null) {
+                        builder.maximumSize(cacheProperties.getLocal().getMaxSize());
+                    } else {
+                        // 按条目大小（字节）限制本地缓存占用的内存
+                        builder.maximumWeight(maxWeight.toBytes());
+                        builder.weigher(localWeigher(key, cacheProperties));
+                    }
+                    if (ReferenceMode.SOFT.equals(cacheProperties.getLocal().getReferenceMode())) {
+                        builder.softValues();
+                    } else if (ReferenceMode.WEAK.equals(cacheProperties.getLocal().getReferenceMode())) {
+                        builder.weakValues();
+                    }
+                    // 本地条目在逻辑过期后再保留一个宽限期，期间返回过期值并在后台刷新
+                    Duration gracePeriod = cacheProperties.getRefresh().getStaleGracePeriod();
+                    if (ExpireMode.WRITE.equals(cacheProperties.getLocal().getExpireMode())) {
+                        builder.expireAfterWrite(cacheProperties.getLocal().getExpireAfterWrite().plus(gracePeriod));
+                    } else if (ExpireMode.ACCESS.equals(cacheProperties.getLocal().getExpireMode())) {
+                        builder.expireAfterAccess(cacheProperties.getLocal().getExpireAfterAccess().plus(gracePeriod));
                     }else {
                         //expireAfter 允许复杂的表达式，过期时间可以通过RandomizedLocalExpiryOnWrite 计算获得。
-                        builder.expireAfter(new RandomizedLocalExpiryOnWrite(properties));
+                        builder.expireAfter(new RandomizedLocalExpiryOnWrite(cacheProperties));
                     }
-                    return new JavafreeMultiLevelCache(
-                            key,
-                            properties,
-                            redisTemplate,
-                            builder.build(),
-                            circuitBreaker);
+                    JavafreeMultiLevelCache cache =
+                            new JavafreeMultiLevelCache(
+                                    key,
+                                    cacheProperties,
+                                    RedisCacheWriter.nonLockingRedisCacheWriter(
+                                            Objects.requireNonNull(redisTemplate.getConnectionFactory())),
+                                    redisTemplate,
+                                    builder.build(),
+                                    circuitBreaker,
+                                    refreshExecutor,
+                                    evictPublisher);
+                    cacheListeners.forEach(listener -> listener.accept(cache));
+                    return cache;
                 });
     }
 
+    /**
+     * 获取或创建与给定名称关联的缓存的响应式接口，与 {@link #getCache(String)} 返回的缓存共用数据
+     * @param name
+     * @return  限定了缓存名称且不包含该名称时为 null
+     * @throws IllegalStateException  Redis 连接工厂不支持响应式连接（不是 Lettuce）时
+     */
+    @Nullable
+    public ReactiveMultiLevelCache getReactiveCache(@NonNull String name) {
+        JavafreeMultiLevelCache cache = (JavafreeMultiLevelCache) getCache(name);
+        if (cache == null) return null;
+        return reactiveCaches.computeIfAbsent(
+                name, key -> new ReactiveMultiLevelCache(cache, getReactiveRedisTemplate()));
+    }
+
+    private ReactiveRedisTemplate<byte[], byte[]> getReactiveRedisTemplate() {
+        ReactiveRedisTemplate<byte[], byte[]> template = reactiveRedisTemplate;
+        if (template != null) return template;
+
+        synchronized (reactiveCaches) {
+            if (reactiveRedisTemplate == null) {
+                RedisConnectionFactory connectionFactory = redisTemplate.getConnectionFactory();
+                if (!(connectionFactory instanceof ReactiveRedisConnectionFactory)) {
+                    throw new IllegalStateException(
+                            "Reactive multilevel cache requires a ReactiveRedisConnectionFactory such as Lettuce");
+                }
+                // 键和值由缓存的配置序列化，模板只传递字节
+                reactiveRedisTemplate =
+                        new ReactiveRedisTemplate<>(
+                                (ReactiveRedisConnectionFactory) connectionFactory,
+                                RedisSerializationContext.byteArray());
+            }
+            return reactiveRedisTemplate;
+        }
+    }
+
+    /**
+     * 按代际清空的缓存在后台重新读取代际号，用于删除通知订阅重连后
+     */
+    public void syncGenerations() {
+        availableCaches.values().forEach(cache -> ((JavafreeMultiLevelCache) cache).syncGeneration());
+    }
+
+    /**
+     * 注册新建缓存时的回调，已经创建的缓存立即回调；并发创建缓存时同一个缓存可能回调两次
+     * @param listener
+     */
+    public void addCacheListener(@NonNull Consumer<JavafreeMultiLevelCache> listener) {
+        cacheListeners.add(listener);
+        availableCaches.values().forEach(cache -> listener.accept((JavafreeMultiLevelCache) cache));
+    }
+
+    /**
+     * 返回本地缓存的 Weigher，优先使用自定义的 Weigher
+     * @param name
+     * @param cacheProperties
+     * @return
+     */
+    private Weigher<Object, Object> localWeigher(
+            @NonNull String name, @NonNull MultiLevelCacheProperties cacheProperties) {
+        if (localWeigher != null) return localWeigher;
+        if (WeigherType.SERIALIZED.equals(cacheProperties.getLocal().getWeigher())) {
+            return LocalCacheWeighers.serialized(
+                    RedisValueSerializers.create(cacheProperties.getSerializer(), cacheProperties.getKryo()));
+        }
+        return LocalCacheWeighers.estimated();
+    }
+
     /**
      * 获取此管理器已知的缓存名称的集合
      *
@@ -117,12 +325,14 @@ public class JavafreeMultiLevelCacheManager implements CacheManager {
         private final Random random;
         private final Duration timeToLive;
         private final double expiryJitter;
+        private final Duration staleGracePeriod;
 
         public RandomizedLocalExpiryOnWrite(
                 @NonNull MultiLevelCacheProperties properties) {
             this.random = new Random(System.currentTimeMillis());
             this.timeToLive = properties.getTimeToLive();
             this.expiryJitter = properties.getLocal().getExpiryJitter();
+            this.staleGracePeriod = properties.getRefresh().getStaleGracePeriod();
 
             if (timeToLive.isNegative()) {
                 throw new IllegalArgumentException("Time to live duration must be positive");
@@ -143,20 +353,19 @@ public class JavafreeMultiLevelCacheManager implements CacheManager {
 
         @Override
         public long expireAfterCreate(@NonNull Object key, @NonNull Object value, long currentTime) {
-            int jitterSign = random.nextBoolean() ? 1 : -1;
-            double randomJitter = 1 + (jitterSign * (expiryJitter / 100) * random.nextDouble());
-            Duration expiry = timeToLive.multipliedBy((long) (100 * randomJitter)).dividedBy(200);
-            log.trace("Key {} will expire in {}", key, expiry);
-            return expiry.toNanos();
+            return randomExpiry(key);
         }
 
+        /**
+         * 更新（包括后台刷新写回）后重新计算过期时间，否则刷新后的条目仍在原来的时间过期
+         */
         @Override
         public long expireAfterUpdate(
                 @NonNull Object key,
                 @NonNull Object value,
                 long currentTime,
                 @NonNegative long currentDuration) {
-            return currentDuration;
+            return randomExpiry(key);
         }
 
         @Override
@@ -167,6 +376,15 @@ public class JavafreeMultiLevelCacheManager implements CacheManager {
                 @NonNegative long currentDuration) {
             return currentDuration;
         }
+
+        private long randomExpiry(@NonNull Object key) {
+            int jitterSign = random.nextBoolean() ? 1 : -1;
+            double randomJitter = 1 + (jitterSign * (expiryJitter / 100) * random.nextDouble());
+            Duration expiry =
+                    timeToLive.multipliedBy((long) (100 * randomJitter)).dividedBy(200).plus(staleGracePeriod);
+            log.trace("Key {} will expire in {}", key, expiry);
+            return expiry.toNanos();
+        }
     }
 
 
@@ -0,0 +1,68 @@
+package com.javafree.cloud.cache.support;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @version V1.0
+ * @Description: 按键加锁的锁表
+ * 锁按引用计数保存，只要有线程持有或等待某个键的锁，该锁就不会被删除；最后一个线程释放后立即删除，
+ * 锁表的大小不超过同时加锁的键的数量
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/22 9:30
+ */
+final class KeyLockTable {
+
+    private final ConcurrentHashMap<Object, KeyLock> locks = new ConcurrentHashMap<>();
+
+    /**
+     * 获得指定键的锁并加锁，调用方必须在 finally 中调用 {@link KeyLock#unlock()}
+     * @param key
+     * @return
+     */
+    @NonNull
+    KeyLock lock(@NonNull Object key) {
+        KeyLock lock =
+                locks.compute(
+                        key,
+                        (k, existing) -> {
+                            KeyLock keyLock = existing == null ? new KeyLock(k) : existing;
+                            keyLock.references++;
+                            return keyLock;
+                        });
+        lock.lock();
+        return lock;
+    }
+
+    /** 当前锁表中的锁数量 */
+    int size() {
+        return locks.size();
+    }
+
+    private void release(@NonNull KeyLock lock) {
+        locks.computeIfPresent(lock.key, (k, existing) -> --existing.references == 0 ? null : existing);
+    }
+
+    /**
+     * 键的锁，引用计数只在 ConcurrentHashMap 的 compute 中修改
+     */
+    final class KeyLock extends ReentrantLock {
+        private final Object key;
+        private int references;
+
+        private KeyLock(@NonNull Object key) {
+            this.key = key;
+        }
+
+        /**
+         * 解锁并释放引用
+         */
+        @Override
+        public void unlock() {
+            super.unlock();
+            release(this);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.javafree.cloud.cache.support;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @version V1.0
+ * @Description: 本地缓存按内存容量限制时使用的 Caffeine Weigher，权重单位为字节
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/19 9:45
+ */
+public final class LocalCacheWeighers {
+
+    // 超过此深度的对象不再展开，防止对象图过大或有环
+    private static final int MAX_DEPTH = 8;
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 8;
+    // JDK 内部类不能通过反射访问字段，按固定大小计算
+    private static final int OPAQUE_OBJECT = 32;
+    private static final Field[] OPAQUE_FIELDS = new Field[0];
+
+    private static final ClassValue<Field[]> INSTANCE_FIELDS =
+            new ClassValue<Field[]>() {
+                @Override
+                protected Field[] computeValue(Class<?> type) {
+                    List<Field> fields = new ArrayList<>();
+                    for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                        for (Field field : c.getDeclaredFields()) {
+                            if (Modifier.isStatic(field.getModifiers())) continue;
+                            try {
+                                field.setAccessible(true);
+                                fields.add(field);
+                            } catch (RuntimeException e) {
+                                return OPAQUE_FIELDS;
+                            }
+                        }
+                    }
+                    return fields.toArray(new Field[0]);
+                }
+            };
+
+    private LocalCacheWeighers() {
+    }
+
+    /**
+     * 估算对象占用堆内存的 Weigher
+     * @return
+     */
+    public static Weigher<Object, Object> estimated() {
+        return (key, value) -> saturate(estimate(key, 0) + estimate(value, 0));
+    }
+
+    /**
+     * 按序列化后字节数计算的 Weigher
+     * @param serializer  缓存值的序列化工具
+     * @return
+     */
+    public static Weigher<Object, Object> serialized(@NonNull RedisSerializer<Object> serializer) {
+        return (key, value) -> {
+            long weight = estimate(key, 0);
+            if (value instanceof NullValue) return saturate(weight + OBJECT_HEADER);
+            byte[] raw = serializer.serialize(value);
+            return saturate(weight + (raw == null ? 0 : raw.length));
+        };
+    }
+
+    /**
+     * 估算对象占用的字节数
+     * @param value
+     * @param depth  当前展开的深度
+     * @return
+     */
+    static long estimate(@Nullable Object value, int depth) {
+        if (value == null) return 0;
+        if (value instanceof String) return 40 + 2L * ((String) value).length();
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character
+                || value instanceof Enum || value instanceof NullValue) {
+            return OBJECT_HEADER + REFERENCE;
+        }
+        if (depth >= MAX_DEPTH) return REFERENCE;
+
+        Class<?> type = value.getClass();
+        if (type.isArray()) {
+            int length = Array.getLength(value);
+            Class<?> component = type.getComponentType();
+            if (component.isPrimitive()) return OBJECT_HEADER + (long) length * primitiveSize(component);
+            long size = OBJECT_HEADER + (long) length * REFERENCE;
+            for (int i = 0; i < length; i++) size += estimate(Array.get(value, i), depth + 1);
+            return size;
+        }
+        if (value instanceof Collection) {
+            long size = 40;
+            for (Object element : (Collection<?>) value) size += REFERENCE + estimate(element, depth + 1);
+            return size;
+        }
+        if (value instanceof Map) {
+            long size = 48;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += 32 + estimate(entry.getKey(), depth + 1) + estimate(entry.getValue(), depth + 1);
+            }
+            return size;
+        }
+        if (type.getName().startsWith("java.")) return OPAQUE_OBJECT;
+
+        Field[] fields = INSTANCE_FIELDS.get(type);
+        if (fields == OPAQUE_FIELDS) return OPAQUE_OBJECT;
+        long size = OBJECT_HEADER;
+        for (Field field : fields) {
+            Class<?> fieldType = field.getType();
+            if (fieldType.isPrimitive()) {
+                size += primitiveSize(fieldType);
+                continue;
+            }
+            try {
+                size += REFERENCE + estimate(field.get(value), depth + 1);
+            } catch (IllegalAccessException e) {
+                size += REFERENCE;
+            }
+        }
+        return size;
+    }
+
+    private static int primitiveSize(@NonNull Class<?> type) {
+        if (type == long.class || type == double.class) return 8;
+        if (type == int.class || type == float.class) return 4;
+        if (type == short.class || type == char.class) return 2;
+        return 1;
+    }
+
+    private static int saturate(long weight) {
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+}
@@ -0,0 +1,257 @@
+package com.javafree.cloud.cache.support;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * @version V1.0
+ * @Description: 堆外存储，保存序列化后的缓存值
+ * 堆外内存按固定大小的存储块划分，按段（direct ByteBuffer）逐步分配直到容量上限，
+ * 条目占用的存储块释放后放入空闲列表复用；空间不足时按最久未使用顺序淘汰条目。
+ * 存储按键的哈希值分为多个分段，每个分段有各自的锁、访问顺序和空闲列表，不同分段的读写互不阻塞
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/20 10:00
+ */
+public class OffHeapStore {
+
+    // 每段最大字节数，段按需分配
+    private static final int MAX_SEGMENT_BYTES = 4 * 1024 * 1024;
+    private static final int[] NO_BLOCKS = new int[0];
+    // 分段数量上限，以及每个分段至少包含的存储块数，容量较小时减少分段，避免单个值放不进分段
+    private static final int MAX_STRIPES = 16;
+    private static final int MIN_STRIPE_BLOCKS = 64;
+
+    private final int blockSize;
+    private final int blocksPerSegment;
+    private final long timeToLiveNanos;
+    private final Stripe[] stripes;
+    private final int mask;
+
+    OffHeapStore(long capacity, int blockSize, long timeToLiveNanos) {
+        if (blockSize <= 0) throw new IllegalArgumentException("Off-heap block size must be positive");
+        if (capacity < blockSize) throw new IllegalArgumentException("Off-heap capacity must not be less than block size");
+        this.blockSize = blockSize;
+        this.blocksPerSegment = Math.max(1, MAX_SEGMENT_BYTES / blockSize);
+        this.timeToLiveNanos = timeToLiveNanos;
+
+        int maxBlocks = (int) Math.min(Integer.MAX_VALUE - 8, capacity / blockSize);
+        int stripeCount = Integer.highestOneBit(Math.max(1, Math.min(MAX_STRIPES, maxBlocks / MIN_STRIPE_BLOCKS)));
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            // 不能整除时前面的分段多分一个存储块
+            stripes[i] = new Stripe(maxBlocks / stripeCount + (i < maxBlocks % stripeCount ? 1 : 0));
+        }
+        this.mask = stripeCount - 1;
+    }
+
+    /**
+     * 读取条目
+     * @param key
+     * @return  没有条目或已过期时为 null
+     */
+    @Nullable
+    byte[] get(@NonNull String key) {
+        return stripeOf(key).get(key);
+    }
+
+    /**
+     * 写入条目，空间不足时淘汰所在分段中最久未使用的条目
+     * @param key
+     * @param value
+     * @return  值大于分段容量时不写入，返回 false
+     */
+    boolean put(@NonNull String key, @NonNull byte[] value) {
+        return stripeOf(key).put(key, value);
+    }
+
+    void remove(@NonNull String key) {
+        stripeOf(key).remove(key);
+    }
+
+    void removeAll(@NonNull Collection<String> keys) {
+        for (String key : keys) remove(key);
+    }
+
+    void clear() {
+        for (Stripe stripe : stripes) stripe.clear();
+    }
+
+    /** 条目数量 */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) size += stripe.size();
+        return size;
+    }
+
+    /** 已使用的堆外内存字节数，按存储块计算 */
+    public long usedBytes() {
+        long usedBlocks = 0;
+        for (Stripe stripe : stripes) usedBlocks += stripe.usedBlocks;
+        return usedBlocks * blockSize;
+    }
+
+    /** 堆外内存容量 */
+    public long capacity() {
+        long maxBlocks = 0;
+        for (Stripe stripe : stripes) maxBlocks += stripe.maxBlocks;
+        return maxBlocks * blockSize;
+    }
+
+    public long hitCount() {
+        long hitCount = 0;
+        for (Stripe stripe : stripes) hitCount += stripe.hitCount;
+        return hitCount;
+    }
+
+    public long missCount() {
+        long missCount = 0;
+        for (Stripe stripe : stripes) missCount += stripe.missCount;
+        return missCount;
+    }
+
+    public long evictionCount() {
+        long evictionCount = 0;
+        for (Stripe stripe : stripes) evictionCount += stripe.evictionCount;
+        return evictionCount;
+    }
+
+    private Stripe stripeOf(@NonNull String key) {
+        int hash = key.hashCode();
+        // 混合高位，避免只有高位不同的哈希值落到同一个分段
+        hash ^= hash >>> 16;
+        return stripes[hash & mask];
+    }
+
+    /**
+     * 一个分段，所有操作在分段的锁内执行
+     */
+    private final class Stripe {
+        private final int maxBlocks;
+        private final List<ByteBuffer> segments = new ArrayList<>();
+        // 空闲存储块，随分配的存储块增多而扩容，不预先按容量分配
+        private int[] freeBlocks = new int[16];
+        private int freeCount;
+        private int allocatedBlocks;
+        // 按访问顺序排列，第一个为最久未使用的条目
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        private volatile int usedBlocks;
+        private volatile long hitCount;
+        private volatile long missCount;
+        private volatile long evictionCount;
+
+        private Stripe(int maxBlocks) {
+            this.maxBlocks = maxBlocks;
+        }
+
+        @Nullable
+        synchronized byte[] get(@NonNull String key) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() <= 0) {
+                removeEntry(entries.remove(key));
+                entry = null;
+            }
+            if (entry == null) {
+                missCount++;
+                return null;
+            }
+            hitCount++;
+
+            byte[] value = new byte[entry.length];
+            for (int i = 0, offset = 0; i < entry.blocks.length; i++, offset += blockSize) {
+                ByteBuffer segment = segmentOf(entry.blocks[i]);
+                // 通过 Buffer 调用 position，JDK 9 以上编译的字节码在 Java 8 上运行不会找不到方法
+                ((Buffer) segment).position(positionOf(entry.blocks[i]));
+                segment.get(value, offset, Math.min(blockSize, entry.length - offset));
+            }
+            return value;
+        }
+
+        synchronized boolean put(@NonNull String key, @NonNull byte[] value) {
+            removeEntry(entries.remove(key));
+            int needed = (value.length + blockSize - 1) / blockSize;
+            if (needed > maxBlocks) return false;
+
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (freeCount + (maxBlocks - allocatedBlocks) < needed && eldest.hasNext()) {
+                Entry victim = eldest.next();
+                eldest.remove();
+                removeEntry(victim);
+                evictionCount++;
+            }
+
+            int[] blocks = needed == 0 ? NO_BLOCKS : new int[needed];
+            for (int i = 0, offset = 0; i < needed; i++, offset += blockSize) {
+                blocks[i] = allocateBlock();
+                ByteBuffer segment = segmentOf(blocks[i]);
+                ((Buffer) segment).position(positionOf(blocks[i]));
+                segment.put(value, offset, Math.min(blockSize, value.length - offset));
+            }
+            usedBlocks += needed;
+            entries.put(key, new Entry(blocks, value.length, System.nanoTime() + timeToLiveNanos));
+            return true;
+        }
+
+        synchronized void remove(@NonNull String key) {
+            removeEntry(entries.remove(key));
+        }
+
+        synchronized void clear() {
+            for (Entry entry : entries.values()) removeEntry(entry);
+            entries.clear();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        private int allocateBlock() {
+            if (freeCount > 0) return freeBlocks[--freeCount];
+            if (allocatedBlocks % blocksPerSegment == 0) {
+                int segmentBlocks = Math.min(blocksPerSegment, maxBlocks - allocatedBlocks);
+                segments.add(ByteBuffer.allocateDirect(segmentBlocks * blockSize));
+            }
+            return allocatedBlocks++;
+        }
+
+        private void removeEntry(@Nullable Entry entry) {
+            if (entry == null) return;
+            if (freeCount + entry.blocks.length > freeBlocks.length) {
+                // 空闲块数不会超过已分配的块数
+                int capacity = Math.max(freeBlocks.length * 2, freeCount + entry.blocks.length);
+                freeBlocks = Arrays.copyOf(freeBlocks, Math.min(capacity, allocatedBlocks));
+            }
+            for (int block : entry.blocks) freeBlocks[freeCount++] = block;
+            usedBlocks -= entry.blocks.length;
+        }
+
+        private ByteBuffer segmentOf(int block) {
+            return segments.get(block / blocksPerSegment);
+        }
+
+        private int positionOf(int block) {
+            return (block % blocksPerSegment) * blockSize;
+        }
+    }
+
+    private static final class Entry {
+        private final int[] blocks;
+        private final int length;
+        private final long expiresAt;
+
+        private Entry(int[] blocks, int length, long expiresAt) {
+            this.blocks = blocks;
+            this.length = length;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
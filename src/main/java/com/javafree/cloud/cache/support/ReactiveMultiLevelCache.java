@@ -0,0 +1,336 @@
+package com.javafree.cloud.cache.support;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * @version V1.0
+ * @Description: 多级缓存的响应式接口，与 {@link JavafreeMultiLevelCache} 共用本地缓存和 Redis 数据
+ * 所有操作在订阅时执行，本地缓存命中时在订阅线程上同步返回，不切换线程；未命中时通过 Lettuce 的响应式命令访问 Redis，
+ * Redis 调用经过与同步接口相同的断路器，Redis 不可用时视为未命中。
+ * 同一个键并发未命中时只调用一次 loader，其他订阅者共用加载结果
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/27 10:30
+ */
+@Slf4j
+public class ReactiveMultiLevelCache {
+
+    private final JavafreeMultiLevelCache cache;
+    private final ReactiveRedisTemplate<byte[], byte[]> redisTemplate;
+    private final CircuitBreaker cacheCircuitBreaker;
+    private final String topic;
+
+    // 正在从 Redis 读取的键（没有 loader），同一个键的并发读取共用一次读取
+    private final Map<String, Mono<Object>> reads = new ConcurrentHashMap<>();
+    // 正在从 Redis 或 loader 加载的键，同一个键的并发请求共用一次加载；与 reads 分开，没有 loader 的读取结果为空时不影响加载
+    private final Map<String, Mono<Object>> loads = new ConcurrentHashMap<>();
+
+    /**
+     * @param cache  同步缓存，一般由 {@link JavafreeMultiLevelCacheManager#getReactiveCache(String)} 获得本对象
+     * @param redisTemplate  键和值都不做序列化的响应式 RedisTemplate，序列化由 cache 的配置完成
+     */
+    public ReactiveMultiLevelCache(
+            @NonNull JavafreeMultiLevelCache cache, @NonNull ReactiveRedisTemplate<byte[], byte[]> redisTemplate) {
+        this.cache = cache;
+        this.redisTemplate = redisTemplate;
+        this.cacheCircuitBreaker = cache.cacheCircuitBreaker;
+        this.topic = cache.properties.getTopic();
+    }
+
+    public String getName() {
+        return cache.getName();
+    }
+
+    /**
+     * 获得对应的同步缓存
+     * @return
+     */
+    public JavafreeMultiLevelCache getCache() {
+        return cache;
+    }
+
+    /**
+     * 查找键的值，依次查找本地缓存和 Redis，Redis 中的值写入本地缓存
+     * @param key
+     * @param <T>
+     * @return  缓存中没有该键或值为空值时为空的 Mono
+     */
+    public <T> Mono<T> get(@NonNull Object key) {
+        return Mono.defer(() -> lookup(key));
+    }
+
+    private <T> Mono<T> lookup(@NonNull Object key) {
+        final String localKey = cache.convertKey(key);
+        final long stamp = cache.currentStamp();
+        Object storeValue = cache.lookupLocal(key, localKey, stamp);
+        if (storeValue != null) return valueOf(storeValue);
+
+        return sharedLoad(reads, localKey, () -> redisGet(key, localKey, stamp)).flatMap(this::valueOf);
+    }
+
+    /**
+     * 获取键的值，缓存中没有时订阅 loader 加载，加载结果写入本地缓存和 Redis
+     * loader 为空且允许存储空值时以空值缓存，防止缓存穿透；loader 的错误传递给订阅者，不写入缓存
+     * @param key
+     * @param loader
+     * @param <T>
+     * @return  值为空时为空的 Mono
+     */
+    public <T> Mono<T> get(@NonNull Object key, @NonNull Mono<T> loader) {
+        return Mono.defer(() -> lookup(key, loader));
+    }
+
+    private <T> Mono<T> lookup(@NonNull Object key, @NonNull Mono<T> loader) {
+        final String localKey = cache.convertKey(key);
+        final long stamp = cache.currentStamp();
+        Object storeValue = cache.lookupLocal(key, localKey, stamp);
+        if (storeValue != null && storeValue != JavafreeMultiLevelCache.EVICTED) return valueOf(storeValue);
+
+        // 合并写入缓冲区中有尚未写入的删除时，Redis 中的值已经过时，直接加载
+        final boolean evicted = storeValue != null;
+        return sharedLoad(
+                        loads,
+                        localKey,
+                        () ->
+                                (evicted ? Mono.empty() : redisGet(key, localKey, stamp))
+                                        .switchIfEmpty(Mono.defer(() -> loadAndStore(key, localKey, loader))))
+                .flatMap(this::valueOf);
+    }
+
+    /**
+     * 批量查找，本地缓存命中的键先同步发出，其余的键通过一次 MGET 从 Redis 读取并写入本地缓存
+     * 缓存中不存在或缓存值为空值的键不发出
+     * @param keys
+     * @param <K>
+     * @param <V>
+     * @return  键与值
+     */
+    public <K, V> Flux<Map.Entry<K, V>> getAll(@NonNull Collection<K> keys) {
+        return Flux.defer(() -> lookupAll(keys));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K, V> Flux<Map.Entry<K, V>> lookupAll(@NonNull Collection<K> keys) {
+        final long stamp = cache.currentStamp();
+        final List<Map.Entry<K, V>> localEntries = new ArrayList<>(keys.size());
+        final List<K> remoteKeys = new ArrayList<>();
+        for (K key : keys) {
+            Object storeValue = cache.lookupLocal(key, cache.convertKey(key), stamp);
+            if (storeValue == null) {
+                remoteKeys.add(key);
+            } else if (storeValue != JavafreeMultiLevelCache.EVICTED) {
+                Object value = cache.valueOf(storeValue);
+                if (value != null) localEntries.add(new SimpleImmutableEntry<>(key, (V) value));
+            }
+        }
+        if (remoteKeys.isEmpty()) return Flux.fromIterable(localEntries);
+
+        Flux<Map.Entry<K, V>> remoteEntries =
+                rawKeysOf(remoteKeys)
+                        .flatMap(rawKeys -> redisTemplate.opsForValue().multiGet(rawKeys))
+                        .transformDeferred(CircuitBreakerOperator.of(cacheCircuitBreaker))
+                        .onErrorResume(e -> redisFailed("multi get", e))
+                        .flatMapIterable(
+                                rawValues -> {
+                                    List<Map.Entry<K, V>> entries = new ArrayList<>(rawValues.size());
+                                    for (int i = 0; i < remoteKeys.size() && i < rawValues.size(); i++) {
+                                        byte[] rawValue = rawValues.get(i);
+                                        if (rawValue == null) continue;
+
+                                        K key = remoteKeys.get(i);
+                                        Object value =
+                                                cache.valueOf(
+                                                        cache.fillFromRedis(cache.convertKey(key), rawValue, stamp));
+                                        if (value != null) entries.add(new SimpleImmutableEntry<>(key, (V) value));
+                                    }
+                                    return entries;
+                                });
+        return Flux.concat(Flux.fromIterable(localEntries), remoteEntries);
+    }
+
+    /**
+     * 写入键的值，本地缓存立即更新，Redis 写入完成后结束；开启合并写入时写入缓冲区后立即结束
+     * 值为 {@code null} 时删除该键
+     * @param key
+     * @param value
+     * @return
+     */
+    public Mono<Void> put(@NonNull Object key, @Nullable Object value) {
+        if (value == null) return evict(key);
+        return Mono.defer(
+                () -> {
+                    if (cache.isCoalescingWrites()) {
+                        cache.put(key, value);
+                        return Mono.empty();
+                    }
+                    Object storeValue = cache.storeValueOf(value);
+                    cache.putLocal(cache.convertKey(key), storeValue);
+                    return redisSet(key, storeValue);
+                });
+    }
+
+    /**
+     * 删除键，本地缓存立即删除，Redis 删除后发送删除通知；开启合并写入时写入缓冲区后立即结束
+     * 删除通知单独发送，不参与 invalidation.window 的合并
+     * @param key
+     * @return
+     */
+    public Mono<Void> evict(@NonNull Object key) {
+        return Mono.defer(() -> remove(key));
+    }
+
+    private Mono<Void> remove(@NonNull Object key) {
+        if (cache.isCoalescingWrites()) {
+            cache.evict(key);
+            return Mono.empty();
+        }
+
+        final String localKey = cache.convertKey(key);
+        cache.invalidateLocal(localKey);
+        final byte[] rawMessage = cache.evictMessageOf(localKey);
+        Mono<?> delete = rawKeyOf(key).flatMap(redisTemplate::delete);
+        if (rawMessage != null) delete = delete.then(redisTemplate.convertAndSend(topic, rawMessage));
+        return delete.transformDeferred(CircuitBreakerOperator.of(cacheCircuitBreaker))
+                .onErrorResume(e -> redisFailed("evict", e))
+                .then();
+    }
+
+    /**
+     * 同一个键同时只有一次加载
+     * 加载结果发出之前移除，之后的请求重新查找，不会取得已完成加载的旧结果
+     * @param inFlight  正在进行的加载，{@link #reads} 或 {@link #loads}
+     * @param localKey
+     * @param source
+     * @return
+     */
+    private Mono<Object> sharedLoad(
+            @NonNull Map<String, Mono<Object>> inFlight,
+            @NonNull String localKey,
+            @NonNull Supplier<Mono<Object>> source) {
+        Mono<Object> existing = inFlight.get(localKey);
+        if (existing != null) return existing;
+
+        AtomicReference<Mono<Object>> self = new AtomicReference<>();
+        Mono<Object> load = Mono.defer(source).doOnTerminate(() -> inFlight.remove(localKey, self.get())).cache();
+        self.set(load);
+        existing = inFlight.putIfAbsent(localKey, load);
+        return existing != null ? existing : load;
+    }
+
+    /**
+     * 从 Redis 读取并写入本地缓存
+     * @return  存储值，Redis 中没有该键或不可用时为空
+     */
+    private Mono<Object> redisGet(@NonNull Object key, @NonNull String localKey, long stamp) {
+        return rawKeyOf(key)
+                .flatMap(rawKey -> redisTemplate.opsForValue().get(rawKey))
+                .transformDeferred(CircuitBreakerOperator.of(cacheCircuitBreaker))
+                .onErrorResume(e -> redisFailed("get", e))
+                .map(rawValue -> cache.fillFromRedis(localKey, rawValue, stamp));
+    }
+
+    /**
+     * 订阅 loader，结果写入本地缓存和 Redis
+     * @return  存储值，loader 为空且不允许存储空值时为空
+     */
+    private Mono<Object> loadAndStore(@NonNull Object key, @NonNull String localKey, @NonNull Mono<?> loader) {
+        return loader.<Object>flatMap(value -> store(key, localKey, value))
+                .switchIfEmpty(
+                        Mono.defer(() -> cache.isAllowNullValues() ? store(key, localKey, null) : Mono.empty()));
+    }
+
+    private Mono<Object> store(@NonNull Object key, @NonNull String localKey, @Nullable Object value) {
+        Object storeValue = cache.storeValueOf(value);
+        if (cache.isCoalescingWrites()) {
+            cache.put(key, storeValue);
+            return Mono.just(storeValue);
+        }
+        cache.putLocal(localKey, storeValue);
+        return redisSet(key, storeValue).thenReturn(storeValue);
+    }
+
+    private Mono<Void> redisSet(@NonNull Object key, @NonNull Object storeValue) {
+        final Duration ttl = cache.getCacheConfiguration().getTtl();
+        return rawKeyOf(key)
+                .flatMap(
+                        rawKey -> {
+                            byte[] rawValue = cache.rawValueOf(storeValue);
+                            return ttl.isZero() || ttl.isNegative()
+                                    ? redisTemplate.opsForValue().set(rawKey, rawValue)
+                                    : redisTemplate.opsForValue().set(rawKey, rawValue, ttl);
+                        })
+                .transformDeferred(CircuitBreakerOperator.of(cacheCircuitBreaker))
+                .onErrorResume(e -> redisFailed("put", e))
+                .then();
+    }
+
+    /**
+     * Redis 中的键，按代际清空且尚未读取代际号时先通过响应式命令读取代际号，
+     * 不使用同步的 RedisTemplate，避免阻塞 Netty 的事件循环线程
+     * @param key
+     * @return
+     */
+    private Mono<byte[]> rawKeyOf(@NonNull Object key) {
+        return Mono.defer(
+                () -> {
+                    byte[] rawKey = cache.rawKeyOf(key);
+                    return rawKey != null ? Mono.just(rawKey) : loadGeneration().then(rawKeyOf(key));
+                });
+    }
+
+    private Mono<List<byte[]>> rawKeysOf(@NonNull List<?> keys) {
+        return Mono.defer(
+                () -> {
+                    List<byte[]> rawKeys = new ArrayList<>(keys.size());
+                    for (Object key : keys) {
+                        byte[] rawKey = cache.rawKeyOf(key);
+                        if (rawKey == null) return loadGeneration().then(rawKeysOf(keys));
+                        rawKeys.add(rawKey);
+                    }
+                    return Mono.just(rawKeys);
+                });
+    }
+
+    /**
+     * 读取代际计数器，代际号已被其他订阅者读取时直接结束
+     * @return
+     */
+    private Mono<Void> loadGeneration() {
+        byte[] generationKey = cache.unloadedGenerationKey();
+        if (generationKey == null) return Mono.empty();
+        return redisTemplate
+                .opsForValue()
+                .get(generationKey)
+                .doOnNext(cache::generationLoaded)
+                .switchIfEmpty(Mono.fromRunnable(() -> cache.generationLoaded(null)))
+                .then();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Mono<T> valueOf(@NonNull Object storeValue) {
+        if (storeValue == JavafreeMultiLevelCache.EVICTED) return Mono.empty();
+        Object value = cache.valueOf(storeValue);
+        return value == null ? Mono.empty() : Mono.just((T) value);
+    }
+
+    private <T> Mono<T> redisFailed(@NonNull String operation, @NonNull Throwable e) {
+        log.debug("Reactive Redis {} on cache {} failed", operation, getName(), e);
+        return Mono.empty();
+    }
+}
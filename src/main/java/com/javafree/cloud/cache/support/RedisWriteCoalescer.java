@@ -0,0 +1,152 @@
+package com.javafree.cloud.cache.support;
+
+import com.javafree.cloud.cache.properties.WriteCoalescingProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * @version V1.0
+ * @Description: Redis 写入合并缓冲区
+ * 同一个键在缓冲期间只保留最后一次操作，达到时间窗口或条目数量后把整个批次交给 flusher 一次写入
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/11 14:45
+ */
+@Slf4j
+class RedisWriteCoalescer {
+
+    // 所有缓存共用的定时写入线程
+    private static final ScheduledExecutorService FLUSH_SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "multilevel-cache-flush");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+
+    private final Duration window;
+    private final int maxBatchSize;
+    private final Consumer<Map<Object, Object>> flusher;
+
+    private Map<Object, Object> pending = new LinkedHashMap<>();
+    // 正在写入 Redis 的批次，写入完成前仍然视为未写入
+    private Map<Object, Object> flushing = Collections.emptyMap();
+    private ScheduledFuture<?> scheduledFlush;
+
+    RedisWriteCoalescer(
+            @NonNull WriteCoalescingProperties properties,
+            @NonNull Consumer<Map<Object, Object>> flusher) {
+        this(properties.getWindow(), properties.getMaxBatchSize(), flusher);
+    }
+
+    RedisWriteCoalescer(
+            @NonNull Duration window, int maxBatchSize, @NonNull Consumer<Map<Object, Object>> flusher) {
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.flusher = flusher;
+    }
+
+    /**
+     * 加入一次写操作，同一个键之前未写入的操作被覆盖
+     * @param key  缓存键
+     * @param operation  要写入的值，或由调用方定义的删除标记
+     */
+    void add(@NonNull Object key, @NonNull Object operation) {
+        boolean flushNow;
+        synchronized (this) {
+            pending.remove(key);
+            pending.put(key, operation);
+            flushNow = pending.size() >= maxBatchSize;
+            if (!flushNow && scheduledFlush == null) {
+                scheduledFlush = FLUSH_SCHEDULER.schedule(this::flush, window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+        if (flushNow) flush();
+    }
+
+    /**
+     * 返回键尚未写入 Redis 的操作
+     * @param key
+     * @return  没有待写入操作时为 null
+     */
+    @Nullable
+    synchronized Object pending(@NonNull Object key) {
+        Object operation = pending.get(key);
+        return operation != null ? operation : flushing.get(key);
+    }
+
+    /**
+     * 丢弃所有未写入的操作，用于清空缓存
+     */
+    synchronized void discard() {
+        pending = new LinkedHashMap<>();
+    }
+
+    /**
+     * 立即写入缓冲的所有操作
+     */
+    void flush() {
+        flushBatch(null);
+    }
+
+    /**
+     * 立即写入某个键尚未写入的操作，直接写 Redis 之前调用，避免之后写入的批次覆盖直接写入的结果
+     * @param key
+     */
+    void flushKey(@NonNull Object key) {
+        flushBatch(key);
+    }
+
+    /**
+     * @param key  只写入该键的操作，为 null 时写入缓冲的所有操作
+     */
+    private void flushBatch(@Nullable Object key) {
+        Map<Object, Object> batch;
+        synchronized (this) {
+            while (!flushing.isEmpty()) {
+                // 同一时间只写入一个批次，保证同一个键的操作按顺序到达 Redis
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (key != null) {
+                Object operation = pending.remove(key);
+                if (operation == null) return;
+                batch = Collections.singletonMap(key, operation);
+            } else {
+                if (scheduledFlush != null) {
+                    scheduledFlush.cancel(false);
+                    scheduledFlush = null;
+                }
+                if (pending.isEmpty()) return;
+                batch = pending;
+                pending = new LinkedHashMap<>();
+            }
+            flushing = batch;
+        }
+
+        try {
+            flusher.accept(batch);
+        } catch (RuntimeException e) {
+            log.debug("Failed to flush {} coalesced cache writes", batch.size(), e);
+        } finally {
+            synchronized (this) {
+                flushing = Collections.emptyMap();
+                notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.javafree.cloud.cache.support;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @version V1.0
+ * @Description: 固定大小的分段锁
+ * 按键的哈希值选取一把预先创建的锁，加锁时没有对象分配；不同的键可能共用一把锁，
+ * 只适合不执行用户代码的短临界区，调用 valueLoader 的加载过程使用 {@link KeyLockTable}
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/22 14:10
+ */
+public final class StripedLocks {
+
+    private static final int MAX_STRIPES = 1 << 16;
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripes  锁的数量，向上取整为 2 的幂
+     */
+    public StripedLocks(int stripes) {
+        if (stripes < 1) throw new IllegalArgumentException("Lock stripes must be positive: " + stripes);
+        int size = stripes >= MAX_STRIPES ? MAX_STRIPES : Integer.highestOneBit(stripes - 1) << 1;
+        if (size == 0) size = 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) this.stripes[i] = new ReentrantLock();
+        this.mask = size - 1;
+    }
+
+    /**
+     * 获得键所在分段的锁并加锁，调用方必须在 finally 中调用 unlock
+     * @param key
+     * @return
+     */
+    @NonNull
+    public ReentrantLock lock(@NonNull Object key) {
+        ReentrantLock lock = stripeOf(key);
+        lock.lock();
+        return lock;
+    }
+
+    /**
+     * 返回键所在分段的锁
+     * @param key
+     * @return
+     */
+    @NonNull
+    public ReentrantLock stripeOf(@NonNull Object key) {
+        int hash = key.hashCode();
+        // 混合高位，避免只有高位不同的哈希值落到同一个分段
+        hash ^= hash >>> 16;
+        return stripes[hash & mask];
+    }
+
+    /** 锁的数量 */
+    public int size() {
+        return stripes.length;
+    }
+}
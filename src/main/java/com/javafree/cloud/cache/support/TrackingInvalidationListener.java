@@ -0,0 +1,194 @@
+package com.javafree.cloud.cache.support;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateAdapter;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.protocol.ProtocolVersion;
+import io.lettuce.core.resource.ClientResources;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * @version V1.0
+ * @Description: 使用 Redis 客户端缓存（RESP3 CLIENT TRACKING BCAST）接收删除通知
+ * 单独建立一条 RESP3 连接，按缓存的键前缀开启广播模式跟踪，任何客户端修改、删除或过期了前缀下的键时，
+ * Redis 把键推送到这条连接，收到后只删除本地缓存中对应的键。重连后跟踪状态丢失，断开期间的推送也无法补发，
+ * 因此重连时重新开启跟踪并清空所有本地缓存
+ * @Author gwz  gwz126@126.com
+ * @Date 2022/8/25 10:00
+ */
+@Slf4j
+public class TrackingInvalidationListener implements InitializingBean, DisposableBean {
+
+    private static final String INVALIDATE = "invalidate";
+
+    private final LettuceConnectionFactory connectionFactory;
+    private final JavafreeMultiLevelCacheManager cacheManager;
+    // 已开启跟踪的前缀
+    private final Set<String> prefixes = ConcurrentHashMap.newKeySet();
+
+    private RedisClient client;
+    private StatefulRedisConnection<String, String> connection;
+    private volatile boolean started;
+
+    public TrackingInvalidationListener(
+            @NonNull LettuceConnectionFactory connectionFactory,
+            @NonNull JavafreeMultiLevelCacheManager cacheManager) {
+        this.connectionFactory = connectionFactory;
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (connectionFactory.isClusterAware() || connectionFactory.isRedisSentinelAware()) {
+            throw new IllegalStateException("Client tracking invalidation requires a standalone Redis server");
+        }
+
+        client = createClient();
+        client.addListener(
+                new RedisConnectionStateAdapter() {
+                    @Override
+                    public void onRedisConnected(RedisChannelHandler<?, ?> handler, SocketAddress socketAddress) {
+                        if (started && handler == connection) onReconnected();
+                    }
+                });
+        connection = client.connect(StringCodec.UTF8);
+        connection.addListener(this::onPushMessage);
+        started = true;
+        cacheManager.addCacheListener(this::track);
+    }
+
+    @Override
+    public void destroy() {
+        started = false;
+        if (connection != null) connection.close();
+        if (client != null) client.shutdown();
+    }
+
+    /**
+     * 开启缓存键前缀的跟踪，已经跟踪的前缀忽略
+     * @param cache
+     */
+    void track(@NonNull JavafreeMultiLevelCache cache) {
+        String prefix = cache.getCacheConfiguration().getKeyPrefixFor(cache.getName());
+        if (prefixes.add(prefix)) enableTracking(Collections.singletonList(prefix));
+    }
+
+    private RedisClient createClient() {
+        RedisStandaloneConfiguration standalone = connectionFactory.getStandaloneConfiguration();
+        RedisURI.Builder uri =
+                RedisURI.builder()
+                        .withHost(standalone.getHostName())
+                        .withPort(standalone.getPort())
+                        .withDatabase(standalone.getDatabase())
+                        .withSsl(connectionFactory.isUseSsl())
+                        .withTimeout(
+                                connectionFactory.getTimeout() > 0
+                                        ? Duration.ofMillis(connectionFactory.getTimeout())
+                                        : RedisURI.DEFAULT_TIMEOUT_DURATION);
+        standalone
+                .getPassword()
+                .toOptional()
+                .ifPresent(
+                        password -> {
+                            if (standalone.getUsername() != null) {
+                                uri.withAuthentication(standalone.getUsername(), password);
+                            } else {
+                                uri.withPassword(password);
+                            }
+                        });
+
+        ClientResources resources = connectionFactory.getClientConfiguration().getClientResources().orElse(null);
+        RedisClient redisClient =
+                resources == null ? RedisClient.create(uri.build()) : RedisClient.create(resources, uri.build());
+        // 推送消息只有 RESP3 协议支持
+        redisClient.setOptions(ClientOptions.builder().protocolVersion(ProtocolVersion.RESP3).build());
+        return redisClient;
+    }
+
+    private void enableTracking(@NonNull List<String> trackedPrefixes) {
+        connection
+                .async()
+                .clientTracking(
+                        TrackingArgs.Builder.enabled()
+                                .bcast()
+                                .prefixes(StandardCharsets.UTF_8, trackedPrefixes.toArray(new String[0])))
+                .exceptionally(
+                        e -> {
+                            // 前缀与已跟踪的前缀重叠时 Redis 拒绝，较短的前缀已经覆盖了这些键
+                            log.warn("Failed to enable client tracking for prefixes {}", trackedPrefixes, e);
+                            return null;
+                        });
+    }
+
+    /**
+     * 重连后重新开启跟踪，断开期间错过的删除通知无法恢复，清空所有本地缓存，按代际清空的缓存重新读取代际号
+     */
+    private void onReconnected() {
+        log.info("Client tracking connection reconnected, clearing local caches");
+        List<String> trackedPrefixes = new ArrayList<>(prefixes);
+        if (!trackedPrefixes.isEmpty()) enableTracking(trackedPrefixes);
+        forEachCache(
+                cache -> {
+                    cache.localInvalidateAll();
+                    cache.syncGeneration();
+                });
+    }
+
+    /**
+     * 处理 Redis 推送的删除通知，内容为 [invalidate, 键列表]，键列表为 null 表示 FLUSHDB/FLUSHALL
+     * @param message
+     */
+    private void onPushMessage(@NonNull PushMessage message) {
+        if (!INVALIDATE.equals(message.getType())) return;
+
+        List<Object> content = message.getContent(StringCodec.UTF8::decodeKey);
+        Object keys = content.size() > 1 ? content.get(1) : null;
+        if (!(keys instanceof List)) {
+            forEachCache(JavafreeMultiLevelCache::localInvalidateAll);
+            return;
+        }
+
+        Map<JavafreeMultiLevelCache, List<String>> localKeys = new HashMap<>();
+        for (Object key : (List<?>) keys) {
+            String redisKey = String.valueOf(key);
+            forEachCache(
+                    cache -> {
+                        String prefix = cache.getCacheConfiguration().getKeyPrefixFor(cache.getName());
+                        if (redisKey.startsWith(prefix)) {
+                            localKeys.computeIfAbsent(cache, c -> new ArrayList<>())
+                                    .add(redisKey.substring(prefix.length()));
+                        }
+                    });
+        }
+        localKeys.forEach(JavafreeMultiLevelCache::localEvictRedisKeys);
+    }
+
+    private void forEachCache(@NonNull Consumer<JavafreeMultiLevelCache> action) {
+        for (String name : cacheManager.getCacheNames()) {
+            action.accept((JavafreeMultiLevelCache) cacheManager.getCache(name));
+        }
+    }
+}
@@ -7,10 +7,25 @@ package com.javafree.cloud.cache;
  * @Date 2022/8/5 9:56
  */
 
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.javafree.cloud.cache.config.JavafreeMultilevelCacheAutoConfiguration;
+import com.javafree.cloud.cache.enums.ClearMode;
+import com.javafree.cloud.cache.properties.MultiLevelCacheProperties;
+import com.javafree.cloud.cache.support.CacheEvictMessage;
 import com.javafree.cloud.cache.support.JavafreeMultiLevelCache;
 import com.javafree.cloud.cache.support.JavafreeMultiLevelCacheManager;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
+import org.awaitility.Awaitility;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.BeforeAll;
@@ -22,6 +37,8 @@ import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
 import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cache.Cache;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -50,6 +67,12 @@ class MultiLevelCacheTestcontainersTest {
 
   @Autowired
   JavafreeMultiLevelCacheManager cacheManager;
+
+  @Autowired
+  MultiLevelCacheProperties cacheProperties;
+
+  @Autowired
+  RedisTemplate<Object, Object> multiLevelCacheRedisTemplate;
 //
 //  @BeforeAll
 //  static void setUpAll() {
@@ -197,6 +220,118 @@ class MultiLevelCacheTestcontainersTest {
     Assertions.assertNull(cache.getLocalCache().getIfPresent(key), "Local cache must evict value");
   }
 
+  @Test
+  void clearInBatchesTest() {
+    final String key = "clearInBatchesTest";
+    final int batchSize = cacheProperties.getClear().getBatchSize();
+
+    JavafreeMultiLevelCache cache = (JavafreeMultiLevelCache) cacheManager.getCache(key);
+    JavafreeMultiLevelCache otherCache = (JavafreeMultiLevelCache) cacheManager.getCache(key + "Other");
+    Assertions.assertNotNull(cache, "Cache should be automatically created upon request");
+    Assertions.assertNotNull(otherCache, "Cache should be automatically created upon request");
+
+    Map<String, String> entries = new HashMap<>();
+    for (int i = 0; i < 25; i++) entries.put(key + i, key + i);
+    cache.putAll(entries);
+    otherCache.put(key, key);
+
+    try {
+      cacheProperties.getClear().setBatchSize(10);
+      Assertions.assertDoesNotThrow(cache::clear, "Method call should not throw an exception");
+    } finally {
+      cacheProperties.getClear().setBatchSize(batchSize);
+    }
+    for (String entryKey : entries.keySet()) {
+      Assertions.assertNull(cache.nativeGet(entryKey), "Every batch must be deleted from Redis");
+    }
+    Assertions.assertEquals(key, otherCache.nativeGet(key), "Keys of other caches must not be deleted");
+  }
+
+  @Test
+  void generationClearTest() {
+    final String key = "generationClearTest";
+    MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+    properties.getClear().setMode(ClearMode.GENERATION);
+    JavafreeMultiLevelCache node1 = newCache(key, properties);
+    JavafreeMultiLevelCache node2 = newCache(key, properties);
+
+    node1.put(key, key);
+    Assertions.assertEquals(key, node2.get(key).get(), "Other node must read value of current generation");
+
+    Assertions.assertDoesNotThrow(node1::clear, "Method call should not throw an exception");
+    Assertions.assertNull(node1.get(key), "Cleared node must not read keys of older generation");
+    Assertions.assertNull(newCache(key, properties).get(key), "New node must read current generation from Redis");
+
+    byte[] rawGeneration =
+            multiLevelCacheRedisTemplate.execute(
+                    (RedisCallback<byte[]>)
+                            connection ->
+                                    connection
+                                            .stringCommands()
+                                            .get((node1.getCacheConfiguration().getKeyPrefixFor(key) + "#generation")
+                                                    .getBytes(StandardCharsets.UTF_8)));
+    Assertions.assertNotNull(rawGeneration, "Generation counter must be stored in Redis");
+    node2.localAdvanceGeneration(Long.parseLong(new String(rawGeneration, StandardCharsets.UTF_8)));
+    Assertions.assertNull(node2.getLocalCache().getIfPresent(key), "Newer generation must clear local cache");
+    Assertions.assertNull(node2.get(key), "Other node must not read keys of older generation");
+  }
+
+  @Test
+  void generationIsSyncedAfterMissedClearTest() {
+    final String key = "generationIsSyncedAfterMissedClearTest";
+    MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+    properties.getClear().setMode(ClearMode.GENERATION);
+    properties.getClear().setGenerationSyncInterval(Duration.ofMillis(200));
+    JavafreeMultiLevelCache node1 = newCache(key, properties);
+    // 未订阅删除通知，错过 node1 的代际通知
+    JavafreeMultiLevelCache node2 = newCache(key, properties);
+
+    node1.put(key, key);
+    Assertions.assertEquals(key, node2.get(key).get(), "Other node must read value of current generation");
+    node1.clear();
+    Assertions.assertEquals(key, node2.get(key).get(), "Node that missed the clear keeps its local value");
+
+    Awaitility.await()
+            .atMost(Duration.ofSeconds(5))
+            .pollInterval(Duration.ofMillis(100))
+            .until(() -> node2.get(key) == null);
+  }
+
+  @Test
+  void generationIsSyncedWhenCircuitClosesTest() {
+    final String key = "generationIsSyncedWhenCircuitClosesTest";
+    MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+    properties.getClear().setMode(ClearMode.GENERATION);
+    properties.getClear().setGenerationSyncInterval(Duration.ZERO);
+    JavafreeMultiLevelCache node1 = newCache(key, properties);
+    CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults(key + "Node2");
+    JavafreeMultiLevelCache node2 =
+            new JavafreeMultiLevelCache(
+                    key, properties, multiLevelCacheRedisTemplate, Caffeine.newBuilder().build(), circuitBreaker);
+
+    node1.put(key, key);
+    Assertions.assertEquals(key, node2.get(key).get(), "Other node must read value of current generation");
+    // 断路器打开期间 node2 错过了代际通知
+    circuitBreaker.transitionToOpenState();
+    node1.clear();
+    circuitBreaker.transitionToHalfOpenState();
+    circuitBreaker.transitionToClosedState();
+
+    Awaitility.await()
+            .atMost(Duration.ofSeconds(5))
+            .until(() -> node2.getLocalCache().getIfPresent(key) == null);
+    Assertions.assertNull(node2.get(key), "Node must read current generation after circuit closes");
+  }
+
+  private JavafreeMultiLevelCache newCache(String name, MultiLevelCacheProperties properties) {
+    return new JavafreeMultiLevelCache(
+            name,
+            properties,
+            multiLevelCacheRedisTemplate,
+            Caffeine.newBuilder().build(),
+            CircuitBreaker.ofDefaults(name));
+  }
+
   @Test
   void invalidateTest() {
     final String key = "invalidateTest";
@@ -213,4 +348,166 @@ class MultiLevelCacheTestcontainersTest {
     Assertions.assertNull(cache.nativeGet(key), "Underlying cache must evict value");
     Assertions.assertNull(cache.getLocalCache().getIfPresent(key), "Local cache must evict value");
   }
-}
\ No newline at end of file
+
+  @Test
+  void getAllTest() {
+    final String key = "getAllTest";
+    final String remoteKey = key + "Remote";
+    final String localKey = key + "Local";
+    final String missingKey = key + "Missing";
+
+    JavafreeMultiLevelCache cache = (JavafreeMultiLevelCache) cacheManager.getCache(key);
+    Assertions.assertNotNull(cache, "Cache should be automatically created upon request");
+
+    Assertions.assertDoesNotThrow(
+            () -> cache.nativePut(remoteKey, remoteKey), "Entity must be able to be created in Redis");
+    Assertions.assertDoesNotThrow(() -> cache.put(localKey, localKey), "Entity must be able to be created");
+    Assertions.assertEquals(
+            2,
+            cache.getAll(Arrays.asList(remoteKey, localKey, missingKey)).size(),
+            "Only existing entities must be returned");
+    Assertions.assertEquals(
+            remoteKey, cache.getLocalCache().getIfPresent(remoteKey), "Local cache must load value from Redis");
+
+    List<Collection<String>> loaderCalls = new ArrayList<>();
+    Map<String, String> values =
+            cache.getAll(
+                    Arrays.asList(remoteKey, localKey, missingKey),
+                    missing -> {
+                      loaderCalls.add(missing);
+                      return Collections.singletonMap(missingKey, missingKey);
+                    });
+
+    Assertions.assertEquals(3, values.size(), "All entities must be returned");
+    Assertions.assertEquals(
+            Collections.singletonList(Collections.singletonList(missingKey)),
+            loaderCalls,
+            "Bulk loader must be called once with missing keys only");
+    Assertions.assertEquals(missingKey, cache.nativeGet(missingKey), "Underlying cache must contain value");
+    Assertions.assertEquals(
+            missingKey, cache.getLocalCache().getIfPresent(missingKey), "Local cache must contain value");
+  }
+
+  @Test
+  void putAllEvictAllTest() {
+    final String key = "putAllEvictAllTest";
+    final String key2 = key + "2";
+
+    JavafreeMultiLevelCache cache = (JavafreeMultiLevelCache) cacheManager.getCache(key);
+    Assertions.assertNotNull(cache, "Cache should be automatically created upon request");
+
+    Map<String, String> entries = new HashMap<>();
+    entries.put(key, key);
+    entries.put(key2, key2);
+    Assertions.assertDoesNotThrow(() -> cache.putAll(entries), "Entities must be able to be created");
+    Assertions.assertEquals(key2, cache.nativeGet(key2), "Underlying cache must contain value");
+    Assertions.assertEquals(
+            key2, cache.getLocalCache().getIfPresent(key2), "Local cache must contain value");
+
+    Assertions.assertDoesNotThrow(
+            () -> cache.evictAll(Arrays.asList(key, key2)), "Entities must be able to be evicted");
+    Assertions.assertNull(cache.nativeGet(key), "Underlying cache must evict value");
+    Assertions.assertNull(cache.getLocalCache().getIfPresent(key2), "Local cache must evict value");
+  }
+
+  @Test
+  void coalescedEvictHidesRedisValueTest() {
+    final String key = "coalescedEvictHidesRedisValueTest";
+    JavafreeMultiLevelCache cache = newCache(key, coalescingProperties());
+
+    cache.nativePut(key, key);
+    cache.evict(key);
+    Assertions.assertTrue(
+            cache.getAll(Collections.singletonList(key)).isEmpty(), "Pending eviction must hide the Redis value");
+    Assertions.assertNull(
+            cache.getLocalCache().getIfPresent(key), "Redis value evicted in buffer must not be cached locally");
+    Assertions.assertEquals(
+            "loaded",
+            cache.getAll(Collections.singletonList(key), keys -> Collections.singletonMap(key, "loaded")).get(key),
+            "Key evicted in buffer must be loaded");
+
+    cache.evict(key);
+    cache.flushWrites();
+  }
+
+  @Test
+  void coalescedWriteIsFlushedBeforeDirectWriteTest() {
+    final String key = "coalescedWriteIsFlushedBeforeDirectWriteTest";
+    JavafreeMultiLevelCache cache = newCache(key, coalescingProperties());
+
+    cache.put(key, "buffered");
+    Assertions.assertTrue(cache.evictIfPresent(key), "Buffered value must be present locally");
+    cache.flushWrites();
+    Assertions.assertNull(cache.nativeGet(key), "Buffered put must not restore a value evicted later");
+
+    cache.nativePut(key, "old");
+    cache.evict(key);
+    Assertions.assertNull(cache.putIfAbsent(key, "absent"), "Key evicted in buffer must be absent");
+    cache.flushWrites();
+    Assertions.assertEquals("absent", cache.nativeGet(key), "Buffered eviction must not delete a value put later");
+
+    cache.evict(key);
+    Assertions.assertEquals("loaded", cache.get(key, () -> "loaded"));
+    cache.flushWrites();
+    Assertions.assertEquals("loaded", cache.nativeGet(key), "Buffered eviction must not delete a value loaded later");
+
+    cache.evict(key);
+    cache.flushWrites();
+  }
+
+  private static MultiLevelCacheProperties coalescingProperties() {
+    MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+    properties.getWriteCoalescing().setEnabled(true);
+    // 只在测试中显式调用 flushWrites 时写入
+    properties.getWriteCoalescing().setWindow(Duration.ofHours(1));
+    return properties;
+  }
+
+  @Test
+  void batchEvictMessageTest() {
+    final String key = "batchEvictMessageTest";
+    final String key2 = key + "2";
+
+    JavafreeMultiLevelCache cache = (JavafreeMultiLevelCache) cacheManager.getCache(key);
+    Assertions.assertNotNull(cache, "Cache should be automatically created upon request");
+
+    cache.getLocalCache().put(key, key);
+    cache.getLocalCache().put(key2, key2);
+    multiLevelCacheRedisTemplate.convertAndSend(
+            cacheProperties.getTopic(),
+            CacheEvictMessage.batch(Collections.singletonMap(key, Arrays.asList(key, key2))));
+
+    Awaitility.await()
+            .atMost(Duration.ofSeconds(5))
+            .until(() -> cache.getLocalCache().estimatedSize() == 0);
+  }
+
+  @Test
+  void evictMessageOriginTest() {
+    final String key = "evictMessageOriginTest";
+
+    JavafreeMultiLevelCache cache = (JavafreeMultiLevelCache) cacheManager.getCache(key);
+    Assertions.assertNotNull(cache, "Cache should be automatically created upon request");
+
+    cache.put(key, key);
+    cache.getLocalCache().put("marker", "marker");
+    multiLevelCacheRedisTemplate.convertAndSend(
+            cacheProperties.getTopic(), new CacheEvictMessage(key, key, null, cacheManager.getNodeId()));
+    multiLevelCacheRedisTemplate.convertAndSend(
+            cacheProperties.getTopic(), new CacheEvictMessage(key, "marker", null, cacheManager.getNodeId() + "-other"));
+
+    // 两条消息按顺序处理，标记被删除时本节点发出的消息已经处理完
+    Awaitility.await()
+            .atMost(Duration.ofSeconds(5))
+            .until(() -> cache.getLocalCache().getIfPresent("marker") == null);
+    Assertions.assertEquals(
+            key, cache.getLocalCache().getIfPresent(key), "Message sent by this node must be ignored");
+
+    multiLevelCacheRedisTemplate.convertAndSend(
+            cacheProperties.getTopic(), new CacheEvictMessage(key, key, null, cacheManager.getNodeId() + "-other"));
+    Awaitility.await()
+            .atMost(Duration.ofSeconds(5))
+            .until(() -> cache.getLocalCache().getIfPresent(key) == null);
+    Assertions.assertEquals(key, cache.nativeGet(key), "Remote eviction must not delete the Redis value");
+  }
+}
@@ -0,0 +1,101 @@
+package com.javafree.cloud.cache.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.javafree.cloud.cache.support.CacheEvictMessage;
+import com.javafree.cloud.cache.support.CacheEvictMessageSerializer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+
+/**
+ * 删除通知消息编码与解码：multiLevelCacheRedisTemplate 的 Jackson 序列化 与 二进制编解码器对比
+ * 运行：mvn test-compile 后执行 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheEvictMessageSerializerBenchmark {
+
+    /** 消息中的键数量，1 为单键消息，其余为批量消息 */
+    @Param({"1", "50"})
+    public int keys;
+
+    private Jackson2JsonRedisSerializer<Object> jsonSerializer;
+    private CacheEvictMessageSerializer binarySerializer;
+    private CacheEvictMessage message;
+    private byte[] jsonMessage;
+    private byte[] binaryMessage;
+
+    @Setup
+    public void setup() {
+        jsonSerializer = new Jackson2JsonRedisSerializer<>(Object.class);
+        ObjectMapper om = new ObjectMapper();
+        om.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        om.activateDefaultTyping(
+                LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.WRAPPER_ARRAY);
+        jsonSerializer.setObjectMapper(om);
+        binarySerializer = new CacheEvictMessageSerializer(jsonSerializer, true);
+
+        if (keys == 1) {
+            message = new CacheEvictMessage("userCache", "com.example.UserService:findById:42");
+        } else {
+            List<String> entryKeys = new ArrayList<>(keys);
+            for (int i = 0; i < keys; i++) entryKeys.add("com.example.UserService:findById:" + i);
+            message = CacheEvictMessage.batch(Collections.singletonMap("userCache", entryKeys));
+        }
+        message.setOrigin("2f0c6a52-9f7e-4a3b-8d55-0d8c4e3f1a77");
+        jsonMessage = jsonSerializer.serialize(message);
+        binaryMessage = binarySerializer.serialize(message);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return jsonSerializer.serialize(message);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return binarySerializer.serialize(message);
+    }
+
+    @Benchmark
+    public Object jsonDeserialize() {
+        return jsonSerializer.deserialize(jsonMessage);
+    }
+
+    @Benchmark
+    public Object binaryDeserialize() {
+        return binarySerializer.deserialize(binaryMessage);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+                        new OptionsBuilder()
+                                .include(CacheEvictMessageSerializerBenchmark.class.getSimpleName())
+                                .build())
+                .run();
+    }
+}
@@ -0,0 +1,99 @@
+package com.javafree.cloud.cache.benchmark;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.javafree.cloud.cache.properties.MultiLevelCacheProperties;
+import com.javafree.cloud.cache.support.CompositeKeyGenerator;
+import com.javafree.cloud.cache.support.CustomKeyGenerator;
+import com.javafree.cloud.cache.support.JavafreeMultiLevelCache;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * @Cacheable 命中本地缓存的完整路径（生成 key + 查找）：customKeyGenerator 与 compositeKeyGenerator 对比
+ * 所有读取都命中本地缓存，不访问 Redis
+ * 运行：mvn test-compile 后执行 main 方法，加 -prof gc 可查看每次命中的分配字节数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompositeKeyBenchmark {
+
+    private static final int KEYS = 1000;
+
+    private CustomKeyGenerator customKeyGenerator;
+    private CompositeKeyGenerator compositeKeyGenerator;
+    private Method method;
+    private JavafreeMultiLevelCache cache;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        customKeyGenerator = new CustomKeyGenerator();
+        compositeKeyGenerator = new CompositeKeyGenerator(customKeyGenerator);
+        method = CompositeKeyBenchmark.class.getMethod("findUser", String.class, long.class);
+
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory();
+        RedisTemplate<Object, Object> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        cache =
+                new JavafreeMultiLevelCache(
+                        "benchmark",
+                        new MultiLevelCacheProperties(),
+                        RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory),
+                        redisTemplate,
+                        Caffeine.newBuilder().maximumSize(4000).build(),
+                        CircuitBreaker.ofDefaults("benchmark"));
+
+        for (long id = 0; id < KEYS; id++) {
+            cache.getLocalCache().put(customKeyGenerator.generate(this, method, "zh_CN", id), "value");
+            // 第一次访问时缓存组合 key 转换后的字符串
+            cache.lookup(compositeKeyGenerator.generate(this, method, "zh_CN", id));
+        }
+    }
+
+    @Benchmark
+    public Object customKeyHit() {
+        return cache.lookup(customKeyGenerator.generate(this, method, "zh_CN", nextId()));
+    }
+
+    @Benchmark
+    public Object compositeKeyHit() {
+        return cache.lookup(compositeKeyGenerator.generate(this, method, "zh_CN", nextId()));
+    }
+
+    public Object findUser(String locale, long id) {
+        return null;
+    }
+
+    private long nextId() {
+        return ThreadLocalRandom.current().nextInt(KEYS);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+                        new OptionsBuilder()
+                                .include(CompositeKeyBenchmark.class.getSimpleName())
+                                .build())
+                .run();
+    }
+}
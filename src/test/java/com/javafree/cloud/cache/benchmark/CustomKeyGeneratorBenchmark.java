@@ -0,0 +1,85 @@
+package com.javafree.cloud.cache.benchmark;
+
+import com.javafree.cloud.cache.enums.KeyHashAlgorithm;
+import com.javafree.cloud.cache.support.CustomKeyGenerator;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import lombok.Data;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * customKeyGenerator 生成 key 的开销：MD5 与 MURMUR3_128 对比
+ * 参数为分页查询常见的 查询条件对象 + 页码参数，以及只有简单类型的参数
+ * 运行：mvn test-compile 后执行 main 方法，加 -prof gc 可查看每次调用的分配字节数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomKeyGeneratorBenchmark {
+
+    @Param({"MD5", "MURMUR3_128"})
+    public KeyHashAlgorithm keyHash;
+
+    private CustomKeyGenerator keyGenerator;
+    private Method method;
+    private Object[] objectParams;
+    private Object[] simpleParams;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        keyGenerator = new CustomKeyGenerator(keyHash);
+        method = CustomKeyGeneratorBenchmark.class.getMethod("findUsers", UserQuery.class, int.class, int.class);
+
+        UserQuery query = new UserQuery();
+        query.setName("gwz");
+        query.setDeptId(1024L);
+        query.setStatus("ACTIVE");
+        objectParams = new Object[] {query, 1, 20};
+        simpleParams = new Object[] {"zh_CN", 42L, 20};
+    }
+
+    @Benchmark
+    public Object objectParams() {
+        return keyGenerator.generate(this, method, objectParams);
+    }
+
+    @Benchmark
+    public Object simpleParams() {
+        return keyGenerator.generate(this, method, simpleParams);
+    }
+
+    public Object findUsers(UserQuery query, int page, int size) {
+        return null;
+    }
+
+    @Data
+    public static class UserQuery {
+        private String name;
+        private Long deptId;
+        private String status;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+                        new OptionsBuilder()
+                                .include(CustomKeyGeneratorBenchmark.class.getSimpleName())
+                                .build())
+                .run();
+    }
+}
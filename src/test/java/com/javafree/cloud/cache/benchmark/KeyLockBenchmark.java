@@ -0,0 +1,94 @@
+package com.javafree.cloud.cache.benchmark;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.javafree.cloud.cache.support.StripedLocks;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * putIfAbsent/evictIfPresent 的加锁开销：原来按键保存在 Caffeine 缓存中的 ReentrantLock 与 分段锁对比
+ * 运行：mvn test-compile 后执行 main 方法，加 -prof gc 可查看每次操作的分配字节数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class KeyLockBenchmark {
+
+    /** 参与加锁的不同键数量 */
+    @Param({"1000", "100000"})
+    public int keys;
+
+    private String[] keyNames;
+    private Cache<Object, ReentrantLock> lockCache;
+    private StripedLocks stripedLocks;
+
+    @Setup
+    public void setup() {
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) keyNames[i] = "com.example.UserService:findById:" + i;
+        // 与原来的 locks 使用相同的本地缓存默认配置
+        lockCache =
+                Caffeine.newBuilder()
+                        .initialCapacity(1000)
+                        .maximumSize(4000)
+                        .softValues()
+                        .expireAfterAccess(Duration.ofSeconds(1800L))
+                        .build();
+        stripedLocks = new StripedLocks(64);
+    }
+
+    @Benchmark
+    public boolean caffeineLockCache() {
+        ReentrantLock lock = lockCache.get(nextKey(), o -> new ReentrantLock());
+        lock.lock();
+        try {
+            return lock.isHeldByCurrentThread();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Benchmark
+    public boolean stripedLocks() {
+        ReentrantLock lock = stripedLocks.lock(nextKey());
+        try {
+            return lock.isHeldByCurrentThread();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private String nextKey() {
+        return keyNames[ThreadLocalRandom.current().nextInt(keys)];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+                        new OptionsBuilder()
+                                .include(KeyLockBenchmark.class.getSimpleName())
+                                .build())
+                .run();
+    }
+}
@@ -0,0 +1,101 @@
+package com.javafree.cloud.cache.benchmark;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.javafree.cloud.cache.properties.MultiLevelCacheProperties;
+import com.javafree.cloud.cache.support.JavafreeMultiLevelCache;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * 本地缓存命中时的键转换开销：每次经过 ConversionService 转换 与 按键对象缓存转换结果对比
+ * 键为 @Cacheable 多参数方法默认生成的 SimpleKey，所有读取都命中本地缓存，不访问 Redis
+ * 运行：mvn test-compile 后执行 main 方法，加 -prof gc 可查看每次命中的分配字节数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocalHitKeyConversionBenchmark {
+
+    private static final int KEYS = 1000;
+
+    private SimpleKey[] keys;
+    private ConversionService conversionService;
+    private Cache<Object, Object> convertingLocalCache;
+    private JavafreeMultiLevelCache cache;
+
+    @Setup
+    public void setup() {
+        keys = new SimpleKey[KEYS];
+        for (int i = 0; i < KEYS; i++) keys[i] = new SimpleKey((long) i, "zh_CN");
+
+        // 原来的命中路径：每次调用 RedisCache.convertKey 使用的 ConversionService 转换后再查本地缓存
+        conversionService = RedisCacheConfiguration.defaultCacheConfig().getConversionService();
+        convertingLocalCache = Caffeine.newBuilder().maximumSize(4000).build();
+
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory();
+        RedisTemplate<Object, Object> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        cache =
+                new JavafreeMultiLevelCache(
+                        "benchmark",
+                        new MultiLevelCacheProperties(),
+                        RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory),
+                        redisTemplate,
+                        Caffeine.newBuilder().maximumSize(4000).build(),
+                        CircuitBreaker.ofDefaults("benchmark"));
+
+        for (SimpleKey key : keys) {
+            convertingLocalCache.put(conversionService.convert(key, String.class), "value");
+            cache.getLocalCache().put(key.toString(), "value");
+            // 第一次访问时缓存转换结果
+            cache.lookup(key);
+        }
+    }
+
+    @Benchmark
+    public Object convertEveryHit() {
+        SimpleKey key = nextKey();
+        return convertingLocalCache.getIfPresent(conversionService.convert(key, String.class));
+    }
+
+    @Benchmark
+    public Object cachedConversion() {
+        return cache.lookup(nextKey());
+    }
+
+    private SimpleKey nextKey() {
+        return keys[ThreadLocalRandom.current().nextInt(KEYS)];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+                        new OptionsBuilder()
+                                .include(LocalHitKeyConversionBenchmark.class.getSimpleName())
+                                .build())
+                .run();
+    }
+}
@@ -0,0 +1,103 @@
+package com.javafree.cloud.cache.benchmark;
+
+import com.javafree.cloud.cache.enums.SerializerType;
+import com.javafree.cloud.cache.properties.KryoProperties;
+import com.javafree.cloud.cache.serializer.RedisValueSerializers;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * 缓存值序列化格式对比：编码、解码耗时，序列化后的大小在 Setup 中输出
+ * 运行：mvn test-compile 后执行 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueSerializerBenchmark {
+
+    @Param({"JSON", "SMILE", "CBOR", "KRYO"})
+    public SerializerType type;
+
+    /** 订单中的明细数量 */
+    @Param({"10", "500"})
+    public int items;
+
+    private RedisSerializer<Object> serializer;
+    private Order order;
+    private byte[] payload;
+
+    @Setup
+    public void setup() {
+        KryoProperties kryo = new KryoProperties();
+        kryo.setRegisteredClasses(Arrays.asList(Order.class.getName(), OrderItem.class.getName()));
+        serializer = RedisValueSerializers.create(type, kryo);
+
+        order = new Order();
+        order.id = 1001L;
+        order.customer = "customer-1001";
+        order.created = new Date(1660000000000L);
+        order.items = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            OrderItem item = new OrderItem();
+            item.sku = "SKU-" + i;
+            item.title = "Item title number " + i;
+            item.quantity = i % 7 + 1;
+            item.price = BigDecimal.valueOf(1999 + i, 2);
+            item.tags = Arrays.asList("tag-a", "tag-b");
+            order.items.add(item);
+        }
+        payload = serializer.serialize(order);
+        System.out.println(type + " payload size with " + items + " items: " + payload.length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return serializer.serialize(order);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return serializer.deserialize(payload);
+    }
+
+    public static class Order {
+        public long id;
+        public String customer;
+        public Date created;
+        public List<OrderItem> items;
+    }
+
+    public static class OrderItem {
+        public String sku;
+        public String title;
+        public int quantity;
+        public BigDecimal price;
+        public List<String> tags;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ValueSerializerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,70 @@
+package com.javafree.cloud.cache.serializer;
+
+import com.javafree.cloud.cache.enums.CompressionAlgorithm;
+import com.javafree.cloud.cache.enums.SerializerType;
+import com.javafree.cloud.cache.properties.CompressionProperties;
+import com.javafree.cloud.cache.properties.KryoProperties;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.unit.DataSize;
+
+class CompressingRedisSerializerTest {
+
+    private final RedisSerializer<Object> json = RedisValueSerializers.create(SerializerType.JSON, new KryoProperties());
+
+    @ParameterizedTest
+    @EnumSource(CompressionAlgorithm.class)
+    void largeValuesAreCompressed(CompressionAlgorithm algorithm) {
+        CompressingRedisSerializer serializer = new CompressingRedisSerializer(json, properties(algorithm));
+        String value = repeat("cached value ", 1000);
+
+        byte[] raw = serializer.serialize(value);
+
+        Assertions.assertEquals(CompressingRedisSerializer.MARKER, raw[0], "Compressed value must start with marker");
+        Assertions.assertEquals(algorithm.getId(), raw[1], "Compressed value must record algorithm");
+        Assertions.assertTrue(raw.length < json.serialize(value).length / 4, "Value must be compressed");
+        Assertions.assertEquals(value, serializer.deserialize(raw), "Compressed value must round trip");
+        Assertions.assertEquals(1, serializer.getStats().compressionCount());
+        Assertions.assertEquals(1, serializer.getStats().decompressionCount());
+        Assertions.assertTrue(serializer.getStats().compressionRatio() < 0.25, "Compression ratio must be recorded");
+    }
+
+    @Test
+    void smallAndOldValuesAreReadAsIs() {
+        CompressingRedisSerializer serializer =
+                new CompressingRedisSerializer(json, properties(CompressionAlgorithm.DEFLATE));
+        String oldValue = repeat("old value ", 1000);
+
+        Assertions.assertArrayEquals(json.serialize("small"), serializer.serialize("small"), "Small value must not be compressed");
+        Assertions.assertEquals(oldValue, serializer.deserialize(json.serialize(oldValue)), "Uncompressed value must be readable");
+        Assertions.assertEquals(0, serializer.getStats().compressionCount());
+    }
+
+    @Test
+    void valuesCompressedWithAnotherAlgorithmAreReadable() {
+        String value = repeat("cached value ", 1000);
+        byte[] lz4 = new CompressingRedisSerializer(json, properties(CompressionAlgorithm.LZ4)).serialize(value);
+
+        Assertions.assertEquals(
+                value,
+                new CompressingRedisSerializer(json, properties(CompressionAlgorithm.DEFLATE)).deserialize(lz4),
+                "Algorithm must be read from header");
+    }
+
+    private static CompressionProperties properties(CompressionAlgorithm algorithm) {
+        CompressionProperties properties = new CompressionProperties();
+        properties.setEnabled(true);
+        properties.setAlgorithm(algorithm);
+        properties.setThreshold(DataSize.ofBytes(256));
+        return properties;
+    }
+
+    private static String repeat(String value, int times) {
+        StringBuilder builder = new StringBuilder(value.length() * times);
+        for (int i = 0; i < times; i++) builder.append(value);
+        return builder.toString();
+    }
+}
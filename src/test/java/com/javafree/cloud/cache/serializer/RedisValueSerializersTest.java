@@ -0,0 +1,82 @@
+package com.javafree.cloud.cache.serializer;
+
+import com.javafree.cloud.cache.enums.SerializerType;
+import com.javafree.cloud.cache.properties.CacheOverrideProperties;
+import com.javafree.cloud.cache.properties.KryoProperties;
+import com.javafree.cloud.cache.properties.MultiLevelCacheProperties;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+class RedisValueSerializersTest {
+
+    @ParameterizedTest
+    @EnumSource(SerializerType.class)
+    void valuesRoundTrip(SerializerType type) {
+        KryoProperties kryo = new KryoProperties();
+        kryo.setRegisteredClasses(Collections.singletonList(Item.class.getName()));
+        RedisSerializer<Object> serializer = RedisValueSerializers.create(type, kryo);
+
+        Item item = new Item("name", 42L, new ArrayList<>(Collections.singletonList("tag")));
+
+        Assertions.assertEquals(item, serializer.deserialize(serializer.serialize(item)), "Object must round trip");
+        Assertions.assertEquals("value", serializer.deserialize(serializer.serialize("value")), "String must round trip");
+    }
+
+    @Test
+    void cacheSerializerOverridesGlobalSerializer() {
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        properties.setSerializer(SerializerType.SMILE);
+        CacheOverrideProperties cache = new CacheOverrideProperties();
+        cache.setSerializer(SerializerType.KRYO);
+        properties.getCaches().put("kryoCache", cache);
+        properties.getCaches().put("defaultCache", new CacheOverrideProperties());
+
+        Assertions.assertEquals(SerializerType.KRYO, properties.serializerOf("kryoCache"));
+        Assertions.assertEquals(SerializerType.SMILE, properties.serializerOf("defaultCache"));
+        Assertions.assertEquals(SerializerType.SMILE, properties.serializerOf("otherCache"));
+        ByteBuffer written =
+                properties.toRedisCacheConfiguration("kryoCache").getValueSerializationPair().write("value");
+        byte[] raw = new byte[written.remaining()];
+        written.get(raw);
+        Assertions.assertEquals(
+                "value",
+                RedisValueSerializers.create(SerializerType.KRYO, properties.getKryo()).deserialize(raw),
+                "Redis cache configuration must use the overridden serializer");
+    }
+
+    static class Item {
+        private String name;
+        private long count;
+        private List<String> tags;
+
+        Item() {
+        }
+
+        Item(String name, long count, List<String> tags) {
+            this.name = name;
+            this.count = count;
+            this.tags = tags;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Item)) return false;
+            Item item = (Item) o;
+            return count == item.count && Objects.equals(name, item.name) && Objects.equals(tags, item.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, count, tags);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.javafree.cloud.cache.support;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.javafree.cloud.cache.properties.InvalidationProperties;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+class CacheEvictMessageSerializerTest {
+
+    private final Jackson2JsonRedisSerializer<Object> jsonSerializer = jsonSerializer();
+    private final CacheEvictMessageSerializer serializer =
+            new CacheEvictMessageSerializer(jsonSerializer, true);
+
+    @Test
+    void roundTripSingleKeyAndClearMessages() {
+        CacheEvictMessage evict = new CacheEvictMessage("cache", "key:中文", null, "node1");
+        CacheEvictMessage clear = new CacheEvictMessage("cache", null, null, "node1");
+
+        byte[] raw = serializer.serialize(evict);
+        Assertions.assertEquals(CacheEvictMessageSerializer.MAGIC, raw[0], "Binary message must start with magic byte");
+        Assertions.assertEquals(evict, serializer.deserialize(raw), "Single key message must round trip");
+        Assertions.assertEquals(clear, serializer.deserialize(serializer.serialize(clear)), "Clear message must round trip");
+    }
+
+    @Test
+    void roundTripBatchMessage() {
+        Map<String, List<String>> entryKeys = new LinkedHashMap<>();
+        entryKeys.put("cache1", Arrays.asList("key1", "key2"));
+        entryKeys.put("cache2", Collections.singletonList("key3"));
+        CacheEvictMessage batch = CacheEvictMessage.batch(entryKeys);
+
+        Assertions.assertEquals(batch, serializer.deserialize(serializer.serialize(batch)), "Batch message must round trip");
+    }
+
+    @Test
+    void roundTripGenerationMessage() {
+        CacheEvictMessage generation = CacheEvictMessage.generation("cache", 42L);
+        generation.setOrigin("node1");
+
+        Assertions.assertEquals(
+                generation, serializer.deserialize(serializer.serialize(generation)), "Generation message must round trip");
+        Assertions.assertEquals(
+                generation,
+                serializer.deserialize(jsonSerializer.serialize(generation)),
+                "Generation message must round trip as JSON");
+    }
+
+    @Test
+    void jsonMessagesFromOlderNodesAreDecoded() {
+        CacheEvictMessage evict = new CacheEvictMessage("cache", "key");
+
+        Assertions.assertEquals(evict, serializer.deserialize(jsonSerializer.serialize(evict)), "JSON message must fall back");
+        Assertions.assertEquals(
+                evict,
+                serializer.deserialize(new CacheEvictMessageSerializer(jsonSerializer, false).serialize(evict)),
+                "Disabled binary format must send JSON");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void jsonBatchIsSentAsSingleKeyMessages() throws Exception {
+        CacheEvictMessageSerializer legacySerializer = new CacheEvictMessageSerializer(jsonSerializer, false);
+        Map<String, List<String>> entryKeys = new LinkedHashMap<>();
+        entryKeys.put("cache1", Arrays.asList("key1", "key2"));
+        entryKeys.put("cache2", Collections.singletonList("key3"));
+        CacheEvictPublisher publisher =
+                new CacheEvictPublisher(
+                        Mockito.mock(RedisTemplate.class),
+                        "topic",
+                        new InvalidationProperties(),
+                        CircuitBreaker.ofDefaults("serializerTest"),
+                        legacySerializer,
+                        "node1");
+
+        List<byte[]> rawMessages = publisher.encodeAll(CacheEvictMessage.batch(entryKeys));
+        Assertions.assertEquals(3, rawMessages.size(), "JSON batch must be split into single key messages");
+        CacheEvictMessage second = serializer.deserialize(rawMessages.get(1));
+        Assertions.assertEquals("cache1", second.getCacheName());
+        Assertions.assertEquals("key2", second.getEntryKey());
+        JsonNode fields = new ObjectMapper().readTree(rawMessages.get(0)).get(1);
+        List<String> names = new ArrayList<>();
+        fields.fieldNames().forEachRemaining(names::add);
+        // 旧版本节点的消息对象只有 cacheName 和 entryKey 两个属性
+        Assertions.assertEquals(Arrays.asList("cacheName", "entryKey"), names, "Older nodes must understand JSON messages");
+    }
+
+    @Test
+    void truncatedMessageIsRejected() {
+        byte[] raw = serializer.serialize(new CacheEvictMessage("cache", "key"));
+
+        Assertions.assertThrows(
+                SerializationException.class,
+                () -> serializer.deserialize(Arrays.copyOf(raw, raw.length - 1)),
+                "Truncated message must not be decoded");
+    }
+
+    static Jackson2JsonRedisSerializer<Object> jsonSerializer() {
+        Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer<>(Object.class);
+        ObjectMapper om = new ObjectMapper();
+        om.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        om.activateDefaultTyping(
+                LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.WRAPPER_ARRAY);
+        jackson2JsonRedisSerializer.setObjectMapper(om);
+        return jackson2JsonRedisSerializer;
+    }
+}
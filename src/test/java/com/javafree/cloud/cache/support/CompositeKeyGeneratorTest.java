@@ -0,0 +1,38 @@
+package com.javafree.cloud.cache.support;
+
+import com.javafree.cloud.cache.enums.KeyHashAlgorithm;
+import com.javafree.cloud.cache.properties.MultiLevelCacheProperties;
+import java.lang.reflect.Method;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CompositeKeyGeneratorTest {
+
+    @Test
+    void equalInvocationsProduceEqualKeys() throws Exception {
+        Method method = CompositeKeyGeneratorTest.class.getDeclaredMethod("equalInvocationsProduceEqualKeys");
+        CompositeKeyGenerator generator = new CompositeKeyGenerator();
+        Object[] params = {"user", 42, new int[] {1, 2}};
+
+        Object key = generator.generate(this, method, params);
+        params[1] = 43;
+        Assertions.assertEquals(key, generator.generate(this, method, "user", 42, new int[] {1, 2}));
+        Assertions.assertEquals(key.hashCode(), generator.generate(this, method, "user", 42, new int[] {1, 2}).hashCode());
+        Assertions.assertNotEquals(key, generator.generate(this, method, "user", 43, new int[] {1, 2}));
+    }
+
+    @Test
+    void redisKeyMatchesCustomKeyGenerator() throws Exception {
+        Method method = CompositeKeyGeneratorTest.class.getDeclaredMethod("redisKeyMatchesCustomKeyGenerator");
+        CustomKeyGenerator custom = new CustomKeyGenerator(KeyHashAlgorithm.MURMUR3_128);
+        Object key = new CompositeKeyGenerator(custom).generate(this, method, "user", 42);
+
+        Assertions.assertEquals(custom.generate(this, method, "user", 42), key.toString());
+
+        JavafreeMultiLevelCache cache = JavafreeMultiLevelCacheLoadingTest.newCache(new MultiLevelCacheProperties());
+        cache.put(key, "value");
+        Assertions.assertEquals("value", cache.getLocalCache().getIfPresent(key.toString()));
+        Assertions.assertEquals(
+                "value", cache.get(new CompositeKeyGenerator(custom).generate(this, method, "user", 42)).get());
+    }
+}
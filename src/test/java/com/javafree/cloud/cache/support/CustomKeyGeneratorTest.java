@@ -0,0 +1,75 @@
+package com.javafree.cloud.cache.support;
+
+import com.javafree.cloud.cache.enums.KeyHashAlgorithm;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class CustomKeyGeneratorTest {
+
+    @Test
+    void md5KeysAreUnchanged() throws Exception {
+        Method method = CustomKeyGeneratorTest.class.getDeclaredMethod("md5KeysAreUnchanged");
+        Object key = new CustomKeyGenerator().generate(this, method, "user", 42);
+
+        StringBuilder expected = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("MD5").digest("\"user\"_42".getBytes())) {
+            expected.append(String.format("%02x", b));
+        }
+        Assertions.assertEquals("CustomKeyGeneratorTest_md5KeysAreUnchanged_" + expected, key);
+    }
+
+    @Test
+    void murmurHashMatchesReferenceVectors() {
+        Assertions.assertEquals("00000000000000000000000000000000", MurmurHash3.hash128Hex(new byte[0]));
+        Assertions.assertEquals(
+                "e34bbc7bbc071b6c7a433ca9c49a9347",
+                MurmurHash3.hash128Hex(
+                        "The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void murmurKeysSeparateParameters() throws Exception {
+        Method method = CustomKeyGeneratorTest.class.getDeclaredMethod("murmurKeysSeparateParameters");
+        CustomKeyGenerator generator = new CustomKeyGenerator(KeyHashAlgorithm.MURMUR3_128);
+
+        Object key = generator.generate(this, method, "a_b", null);
+        Assertions.assertEquals(key, generator.generate(this, method, "a_b", null));
+        Assertions.assertNotEquals(key, generator.generate(this, method, "a", "b"));
+        Assertions.assertNotEquals(key, generator.generate(this, method, "a_b", "null"));
+        Assertions.assertTrue(key.toString().matches("CustomKeyGeneratorTest_murmurKeysSeparateParameters_[0-9a-f]{32}"));
+    }
+
+    @Test
+    void murmurKeysSeparateParameterTypes() throws Exception {
+        Method method = CustomKeyGeneratorTest.class.getDeclaredMethod("murmurKeysSeparateParameterTypes");
+        CustomKeyGenerator generator = new CustomKeyGenerator(KeyHashAlgorithm.MURMUR3_128);
+
+        Object key = generator.generate(this, method, 1);
+        Assertions.assertNotEquals(key, generator.generate(this, method, "1"));
+        Assertions.assertNotEquals(key, generator.generate(this, method, 1L));
+        Assertions.assertNotEquals(generator.generate(this, method, "{}"), generator.generate(this, method, new Empty()));
+    }
+
+    @Test
+    void unserializableParametersAreRejected() throws Exception {
+        Method method = CustomKeyGeneratorTest.class.getDeclaredMethod("unserializableParametersAreRejected");
+
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> new CustomKeyGenerator(KeyHashAlgorithm.MURMUR3_128).generate(this, method, new Unserializable()));
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> new CustomKeyGenerator().generate(this, method, "user", new Unserializable()));
+    }
+
+    static class Empty {}
+
+    static class Unserializable {
+        public String getValue() {
+            throw new IllegalStateException("Not serializable");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.javafree.cloud.cache.support;
+
+import com.javafree.cloud.cache.properties.HotKeyProperties;
+import com.javafree.cloud.cache.properties.MultiLevelCacheProperties;
+import java.time.Duration;
+import java.util.List;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.core.RedisTemplate;
+
+class HotKeyTrackerTest {
+
+    private static HotKeyProperties hotKeyProperties(Duration window) {
+        HotKeyProperties properties = new HotKeyProperties();
+        properties.setEnabled(true);
+        properties.setThreshold(10);
+        properties.setMaxKeys(2);
+        properties.setWindow(window);
+        return properties;
+    }
+
+    @Test
+    void frequentlyReadKeysBecomeHot() {
+        HotKeyTracker tracker = new HotKeyTracker(hotKeyProperties(Duration.ofMinutes(1)));
+
+        for (int i = 0; i < 9; i++) Assertions.assertFalse(tracker.record("hot"));
+        Assertions.assertTrue(tracker.record("hot"), "Key must become hot at the threshold");
+        Assertions.assertFalse(tracker.record("cold"));
+
+        for (int i = 0; i < 10; i++) tracker.record("second");
+        for (int i = 0; i < 10; i++) tracker.record("third");
+        List<HotKeyTracker.HotKey> hotKeys = tracker.hotKeys();
+        Assertions.assertEquals(2, hotKeys.size(), "Hot keys must be limited to maxKeys");
+        Assertions.assertEquals("hot", hotKeys.get(0).getKey());
+        Assertions.assertFalse(hotKeys.get(0).isPinned());
+    }
+
+    @Test
+    void hotKeysCoolDownAfterWindows() {
+        HotKeyTracker tracker = new HotKeyTracker(hotKeyProperties(Duration.ofMillis(20)));
+        for (int i = 0; i < 10; i++) tracker.record("hot");
+        Assertions.assertEquals(1, tracker.hotKeys().size());
+
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(2))
+                .untilAsserted(
+                        () -> {
+                            tracker.record("other");
+                            Assertions.assertTrue(tracker.hotKeys().isEmpty(), "Cold key must be demoted");
+                        });
+    }
+
+    @Test
+    void pinnedValueSurvivesLocalExpiry() {
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        properties.setHotKey(hotKeyProperties(Duration.ofMinutes(1)));
+        RedisCacheWriter writer = Mockito.mock(RedisCacheWriter.class);
+        JavafreeMultiLevelCache cache =
+                JavafreeMultiLevelCacheLoadingTest.newCache(properties, writer, Mockito.mock(RedisTemplate.class));
+
+        cache.put("key", "value");
+        for (int i = 0; i < 10; i++) Assertions.assertEquals("value", cache.get("key").get());
+        Assertions.assertTrue(cache.getHotKeyTracker().hotKeys().get(0).isPinned());
+
+        // 模拟本地缓存过期
+        cache.getLocalCache().invalidate("key");
+        Assertions.assertEquals("value", cache.get("key").get());
+        Assertions.assertEquals("value", cache.getLocalCache().getIfPresent("key"));
+        Mockito.verify(writer, Mockito.never()).get(ArgumentMatchers.any(), ArgumentMatchers.any());
+
+        cache.evict("key");
+        Assertions.assertFalse(cache.getHotKeyTracker().hotKeys().get(0).isPinned(), "Evicted value must be unpinned");
+    }
+}
@@ -0,0 +1,44 @@
+package com.javafree.cloud.cache.support;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class InvalidationStampsTest {
+
+    @Test
+    void keyInvalidatedAfterStampIsNotCurrent() {
+        InvalidationStamps stamps = new InvalidationStamps();
+        long stamp = stamps.current();
+        Assertions.assertTrue(stamps.isCurrent("a", stamp));
+
+        stamps.invalidate("a");
+        Assertions.assertFalse(stamps.isCurrent("a", stamp), "Read started before invalidation must be rejected");
+        Assertions.assertTrue(stamps.isCurrent("a", stamps.current()), "Read started after invalidation is current");
+    }
+
+    @Test
+    void invalidateAllRejectsEveryEarlierStamp() {
+        InvalidationStamps stamps = new InvalidationStamps();
+        long stamp = stamps.current();
+
+        stamps.invalidateAll();
+        Assertions.assertFalse(stamps.isCurrent("a", stamp));
+        Assertions.assertFalse(stamps.isCurrent("b", stamp));
+        Assertions.assertTrue(stamps.isCurrent("a", stamps.current()));
+    }
+
+    @Test
+    void otherSlotsAreNotAffected() {
+        InvalidationStamps stamps = new InvalidationStamps(2);
+        // "a" 和 "b" 的哈希值相差 1，落在不同的分段
+        long stamp = stamps.current();
+        stamps.invalidate("a");
+        Assertions.assertTrue(stamps.isCurrent("b", stamp));
+    }
+
+    @Test
+    void slotsMustBePowerOfTwo() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new InvalidationStamps(3));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new InvalidationStamps(0));
+    }
+}
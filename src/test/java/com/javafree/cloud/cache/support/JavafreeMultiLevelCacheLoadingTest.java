@@ -0,0 +1,517 @@
+package com.javafree.cloud.cache.support;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.javafree.cloud.cache.properties.MultiLevelCacheProperties;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+/**
+ * 不依赖 Redis 的加载并发测试，Redis 读写由 mock 的 RedisCacheWriter 代替
+ */
+class JavafreeMultiLevelCacheLoadingTest {
+    private static final int THREADS = 8;
+    private static final long LOAD_MILLIS = 200;
+
+    static JavafreeMultiLevelCache newCache(MultiLevelCacheProperties properties) {
+        return newCache(
+                properties, Mockito.mock(RedisCacheWriter.class), Mockito.mock(RedisTemplate.class));
+    }
+
+    static JavafreeMultiLevelCache newCache(
+            MultiLevelCacheProperties properties,
+            RedisCacheWriter writer,
+            RedisTemplate<Object, Object> redisTemplate) {
+        return new JavafreeMultiLevelCache(
+                "loadingTest",
+                properties,
+                writer,
+                redisTemplate,
+                Caffeine.newBuilder().build(),
+                CircuitBreaker.ofDefaults("loadingTest"));
+    }
+
+    /**
+     * 使用管理器创建的本地缓存（默认 RANDOM 过期策略），Redis 不可用，读写均按未命中处理
+     */
+    static JavafreeMultiLevelCacheManager newManager(MultiLevelCacheProperties properties) {
+        return newManager(properties, Mockito.mock(RedisConnectionFactory.class));
+    }
+
+    /**
+     * 使用管理器创建的本地缓存，Redis 读取返回 redisValue 中的 JSON（为 null 时未命中），写入被忽略
+     */
+    static JavafreeMultiLevelCacheManager newManager(
+            MultiLevelCacheProperties properties, AtomicReference<String> redisValue) {
+        RedisConnectionFactory connectionFactory = Mockito.mock(RedisConnectionFactory.class);
+        RedisConnection connection = Mockito.mock(RedisConnection.class);
+        Mockito.when(connectionFactory.getConnection()).thenReturn(connection);
+        Mockito.when(connection.get(ArgumentMatchers.any())).thenAnswer(invocation -> rawValueOf(redisValue));
+        return newManager(properties, connectionFactory);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JavafreeMultiLevelCacheManager newManager(
+            MultiLevelCacheProperties properties, RedisConnectionFactory connectionFactory) {
+        RedisTemplate<Object, Object> redisTemplate = Mockito.mock(RedisTemplate.class);
+        Mockito.when(redisTemplate.getConnectionFactory()).thenReturn(connectionFactory);
+        return new JavafreeMultiLevelCacheManager(
+                Mockito.mock(ObjectProvider.class),
+                properties,
+                redisTemplate,
+                CircuitBreaker.ofDefaults("loadingTest"));
+    }
+
+    @SuppressWarnings("unchecked")
+    static RedisTemplate<Object, Object> lockHeldElsewhere() {
+        RedisTemplate<Object, Object> redisTemplate = Mockito.mock(RedisTemplate.class);
+        ValueOperations<Object, Object> valueOperations = Mockito.mock(ValueOperations.class);
+        Mockito.when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        Mockito.when(
+                        valueOperations.setIfAbsent(
+                                ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(Duration.class)))
+                .thenReturn(false);
+        return redisTemplate;
+    }
+
+    static byte[] rawValueOf(AtomicReference<String> redisValue) {
+        String value = redisValue.get();
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static MultiLevelCacheProperties distributedLockProperties() {
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        properties.getDistributedLock().setEnabled(true);
+        properties.getDistributedLock().setWaitTime(Duration.ofMillis(300));
+        properties.getDistributedLock().setRetryInterval(Duration.ofMillis(20));
+        return properties;
+    }
+
+    @Test
+    void sameKeyIsLoadedOnce() throws Exception {
+        JavafreeMultiLevelCache cache = newCache(new MultiLevelCacheProperties());
+        AtomicInteger loads = new AtomicInteger();
+
+        List<String> results =
+                runConcurrently(
+                        i ->
+                                cache.get(
+                                        "sameKey",
+                                        () -> {
+                                            loads.incrementAndGet();
+                                            TimeUnit.MILLISECONDS.sleep(LOAD_MILLIS);
+                                            return "value";
+                                        }));
+
+        Assertions.assertEquals(1, loads.get(), "Concurrent misses on one key must share one load");
+        results.forEach(r -> Assertions.assertEquals("value", r, "Every caller must get loaded value"));
+    }
+
+    @Test
+    void distinctKeysAreLoadedInParallel() throws Exception {
+        JavafreeMultiLevelCache cache = newCache(new MultiLevelCacheProperties());
+        AtomicInteger loads = new AtomicInteger();
+
+        long start = System.nanoTime();
+        runConcurrently(
+                i ->
+                        cache.get(
+                                "key" + i,
+                                () -> {
+                                    loads.incrementAndGet();
+                                    TimeUnit.MILLISECONDS.sleep(LOAD_MILLIS);
+                                    return "value" + i;
+                                }));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assertions.assertEquals(THREADS, loads.get(), "Every distinct key must be loaded");
+        Assertions.assertTrue(
+                elapsedMillis < LOAD_MILLIS * THREADS / 2,
+                "Loads of distinct keys must not be serialized, took " + elapsedMillis + "ms");
+    }
+
+    @Test
+    void distributedLockWaiterReadsValueLoadedByOtherNode() {
+        RedisCacheWriter writer = Mockito.mock(RedisCacheWriter.class);
+        Mockito.when(writer.get(ArgumentMatchers.anyString(), ArgumentMatchers.any()))
+                .thenReturn(null, "\"remote\"".getBytes(StandardCharsets.UTF_8));
+        JavafreeMultiLevelCache cache =
+                newCache(distributedLockProperties(), writer, lockHeldElsewhere());
+        AtomicInteger loads = new AtomicInteger();
+
+        Object value =
+                cache.get(
+                        "lockedKey",
+                        () -> {
+                            loads.incrementAndGet();
+                            return "local";
+                        });
+
+        Assertions.assertEquals("remote", value, "Waiting node must read value loaded by lock holder");
+        Assertions.assertEquals(0, loads.get(), "Waiting node must not call value loader");
+    }
+
+    @Test
+    void distributedLockWaitTimeoutFallsBackToLocalLoad() {
+        JavafreeMultiLevelCache cache =
+                newCache(
+                        distributedLockProperties(), Mockito.mock(RedisCacheWriter.class), lockHeldElsewhere());
+        AtomicInteger loads = new AtomicInteger();
+
+        Object value =
+                cache.get(
+                        "lockedKey",
+                        () -> {
+                            loads.incrementAndGet();
+                            return "local";
+                        });
+
+        Assertions.assertEquals("local", value, "Value must be loaded locally after wait timeout");
+        Assertions.assertEquals(1, loads.get(), "Value loader must be called once after wait timeout");
+    }
+
+    @Test
+    void earlyRefreshReturnsCurrentValueAndRereadsRedisInBackground() {
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        properties.getRefresh().setEarlyEnabled(true);
+        // 极大的系数使任何加载耗时都满足刷新条件
+        properties.getRefresh().setBeta(Double.MAX_VALUE);
+        RedisCacheWriter writer = Mockito.mock(RedisCacheWriter.class);
+        AtomicReference<String> redisValue = new AtomicReference<>();
+        Mockito.when(writer.get(ArgumentMatchers.anyString(), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> rawValueOf(redisValue));
+        JavafreeMultiLevelCache cache =
+                new JavafreeMultiLevelCache(
+                        "loadingTest",
+                        properties,
+                        writer,
+                        Mockito.mock(RedisTemplate.class),
+                        Caffeine.newBuilder().expireAfterWrite(Duration.ofMinutes(1)).build(),
+                        CircuitBreaker.ofDefaults("loadingTest"));
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = () -> "value" + loads.incrementAndGet();
+
+        Assertions.assertEquals("value1", cache.get("refreshKey", loader), "First call must load value");
+        // 其他节点更新了 Redis 中的值
+        redisValue.set("\"value2\"");
+        Assertions.assertEquals(
+                "value1", cache.get("refreshKey", loader), "Early refresh must not block the caller");
+
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(5))
+                .untilAsserted(
+                        () ->
+                                Assertions.assertEquals(
+                                        "value2",
+                                        cache.getLocalCache().getIfPresent("refreshKey"),
+                                        "Background refresh must replace local value with Redis value"));
+        Assertions.assertEquals(1, loads.get(), "Background refresh must not replay the caller's loader");
+    }
+
+    @Test
+    void earlyRefreshExtendsLocalExpiry() throws Exception {
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        // 本地缓存存活时间为 TTL 的一半，即 2 秒
+        properties.setTimeToLive(Duration.ofSeconds(4));
+        properties.getLocal().setExpiryJitter(0);
+        properties.getRefresh().setEarlyEnabled(true);
+        properties.getRefresh().setBeta(Double.MAX_VALUE);
+        AtomicReference<String> redisValue = new AtomicReference<>();
+        JavafreeMultiLevelCacheManager cacheManager = newManager(properties, redisValue);
+        try {
+            JavafreeMultiLevelCache cache = (JavafreeMultiLevelCache) cacheManager.getCache("earlyRefresh");
+            AtomicInteger loads = new AtomicInteger();
+            Callable<String> loader = () -> "value" + loads.incrementAndGet();
+
+            final long start = System.nanoTime();
+            Assertions.assertEquals("value1", cache.get("refreshKey", loader), "First call must load value");
+            redisValue.set("\"value2\"");
+            TimeUnit.SECONDS.sleep(1);
+            Assertions.assertEquals("value1", cache.get("refreshKey", loader), "Early refresh must not block the caller");
+            Awaitility.await()
+                    .atMost(Duration.ofSeconds(5))
+                    .untilAsserted(
+                            () -> Assertions.assertEquals("value2", cache.getLocalCache().getIfPresent("refreshKey")));
+
+            // 超过首次写入时的过期时间，刷新写回的值仍然有效
+            TimeUnit.NANOSECONDS.sleep(Duration.ofMillis(2500).toNanos() - (System.nanoTime() - start));
+            Assertions.assertEquals(
+                    "value2",
+                    cache.getLocalCache().getIfPresent("refreshKey"),
+                    "Refreshed value must expire after its own time to live");
+            Assertions.assertEquals(1, loads.get(), "Background refresh must not replay the caller's loader");
+        } finally {
+            cacheManager.destroy();
+        }
+    }
+
+    @Test
+    void staleValueIsServedWithinGracePeriod() throws Exception {
+        final Duration timeToLive = Duration.ofMillis(100);
+        final Duration gracePeriod = Duration.ofMinutes(1);
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        properties.getRefresh().setStaleGracePeriod(gracePeriod);
+        RedisCacheWriter writer = Mockito.mock(RedisCacheWriter.class);
+        AtomicReference<String> redisValue = new AtomicReference<>();
+        Mockito.when(writer.get(ArgumentMatchers.anyString(), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> rawValueOf(redisValue));
+        JavafreeMultiLevelCache cache =
+                new JavafreeMultiLevelCache(
+                        "loadingTest",
+                        properties,
+                        writer,
+                        Mockito.mock(RedisTemplate.class),
+                        Caffeine.newBuilder().expireAfterWrite(timeToLive.plus(gracePeriod)).build(),
+                        CircuitBreaker.ofDefaults("loadingTest"));
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = () -> "value" + loads.incrementAndGet();
+
+        Assertions.assertEquals("value1", cache.get("staleKey", loader), "First call must load value");
+        redisValue.set("\"value2\"");
+        TimeUnit.MILLISECONDS.sleep(timeToLive.toMillis() * 2);
+        Assertions.assertEquals(
+                "value1", cache.get("staleKey", loader), "Stale value must be served within grace period");
+
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(5))
+                .untilAsserted(
+                        () ->
+                                Assertions.assertEquals(
+                                        "value2",
+                                        cache.getLocalCache().getIfPresent("staleKey"),
+                                        "Stale value must be refreshed from Redis in background"));
+        Assertions.assertEquals(1, loads.get(), "Background refresh must not replay the caller's loader");
+    }
+
+    @Test
+    void staleValueMissingFromRedisIsLoadedByNextCaller() throws Exception {
+        final Duration timeToLive = Duration.ofMillis(100);
+        final Duration gracePeriod = Duration.ofMinutes(1);
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        properties.getRefresh().setStaleGracePeriod(gracePeriod);
+        JavafreeMultiLevelCache cache =
+                new JavafreeMultiLevelCache(
+                        "loadingTest",
+                        properties,
+                        Mockito.mock(RedisCacheWriter.class),
+                        Mockito.mock(RedisTemplate.class),
+                        Caffeine.newBuilder().expireAfterWrite(timeToLive.plus(gracePeriod)).build(),
+                        CircuitBreaker.ofDefaults("loadingTest"));
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = () -> "value" + loads.incrementAndGet();
+
+        Assertions.assertEquals("value1", cache.get("staleKey", loader), "First call must load value");
+        TimeUnit.MILLISECONDS.sleep(timeToLive.toMillis() * 2);
+        Assertions.assertEquals(
+                "value1", cache.get("staleKey", loader), "Stale value must be served within grace period");
+
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(5))
+                .untilAsserted(
+                        () ->
+                                Assertions.assertNull(
+                                        cache.getLocalCache().getIfPresent("staleKey"),
+                                        "Stale value missing from Redis must be dropped"));
+        Assertions.assertEquals(1, loads.get(), "Background refresh must not replay the caller's loader");
+        Assertions.assertEquals("value2", cache.get("staleKey", loader), "Next caller must load the value itself");
+    }
+
+    @Test
+    void refreshedStaleValueGetsNewExpiry() throws Exception {
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        // 逻辑存活时间 1 秒，本地缓存再保留 2 秒宽限期
+        properties.setTimeToLive(Duration.ofSeconds(2));
+        properties.getLocal().setExpiryJitter(0);
+        properties.getRefresh().setStaleGracePeriod(Duration.ofSeconds(2));
+        AtomicReference<String> redisValue = new AtomicReference<>();
+        JavafreeMultiLevelCacheManager cacheManager = newManager(properties, redisValue);
+        try {
+            JavafreeMultiLevelCache cache = (JavafreeMultiLevelCache) cacheManager.getCache("staleRefresh");
+            AtomicInteger loads = new AtomicInteger();
+            Callable<String> loader = () -> "value" + loads.incrementAndGet();
+
+            final long start = System.nanoTime();
+            Assertions.assertEquals("value1", cache.get("staleKey", loader), "First call must load value");
+            redisValue.set("\"value2\"");
+            TimeUnit.MILLISECONDS.sleep(1300);
+            Assertions.assertEquals(
+                    "value1", cache.get("staleKey", loader), "Stale value must be served within grace period");
+            Awaitility.await()
+                    .atMost(Duration.ofSeconds(5))
+                    .untilAsserted(
+                            () -> Assertions.assertEquals("value2", cache.getLocalCache().getIfPresent("staleKey")));
+
+            // 刷新后的值不再是过期值，读取不会再次刷新
+            redisValue.set("\"value3\"");
+            for (int i = 0; i < 5; i++) Assertions.assertEquals("value2", cache.get("staleKey", loader));
+            TimeUnit.MILLISECONDS.sleep(200);
+            Assertions.assertEquals("value2", cache.getLocalCache().getIfPresent("staleKey"), "Refreshed value must not be refreshed again");
+            Assertions.assertEquals(1, loads.get(), "Background refresh must not replay the caller's loader");
+
+            // 超过首次写入时的过期时间加宽限期，刷新后的值仍然有效
+            TimeUnit.NANOSECONDS.sleep(Duration.ofMillis(3500).toNanos() - (System.nanoTime() - start));
+            Assertions.assertEquals(
+                    "value2",
+                    cache.getLocalCache().getIfPresent("staleKey"),
+                    "Refreshed value must expire after its own time to live and grace period");
+        } finally {
+            cacheManager.destroy();
+        }
+    }
+
+    @Test
+    void convertedKeysAreReusedForValueKeys() {
+        JavafreeMultiLevelCache cache = newCache(new MultiLevelCacheProperties());
+
+        cache.put(new SimpleKey(42L, "a"), "value");
+        String converted = cache.convertKey(new SimpleKey(42L, "a"));
+        Assertions.assertSame(
+                converted, cache.convertKey(new SimpleKey(42L, "a")), "Equal keys must reuse the converted key");
+        Assertions.assertEquals("value", cache.getLocalCache().getIfPresent(converted));
+        Assertions.assertEquals("value", cache.get(new SimpleKey(42L, "a")).get());
+
+        List<Long> mutableKey = new ArrayList<>();
+        mutableKey.add(1L);
+        cache.convertKey(mutableKey);
+        mutableKey.add(2L);
+        Assertions.assertEquals("1,2", cache.convertKey(mutableKey), "Collection keys must not be cached");
+    }
+
+    @Test
+    void valueReadBeforeEvictionIsNotCachedLocally() {
+        RedisCacheWriter writer = Mockito.mock(RedisCacheWriter.class);
+        JavafreeMultiLevelCache cache = newCache(new MultiLevelCacheProperties(), writer, Mockito.mock(RedisTemplate.class));
+        // 读取 Redis 期间收到其他节点的删除通知，读到的是通知之前的旧值
+        Mockito.when(writer.get(ArgumentMatchers.anyString(), ArgumentMatchers.any()))
+                .thenAnswer(
+                        invocation -> {
+                            cache.localEvictAll(Collections.singletonList("racedKey"));
+                            return "\"stale\"".getBytes(StandardCharsets.UTF_8);
+                        })
+                .thenReturn("\"fresh\"".getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertEquals("stale", cache.get("racedKey").get(), "Caller still gets the value it read");
+        Assertions.assertNull(
+                cache.getLocalCache().getIfPresent("racedKey"), "Value read before eviction must not be cached locally");
+        Assertions.assertEquals("fresh", cache.get("racedKey").get());
+        Assertions.assertEquals("fresh", cache.getLocalCache().getIfPresent("racedKey"));
+    }
+
+    @Test
+    void valueReadDuringLocalWriteDoesNotOverwriteIt() throws Exception {
+        RedisCacheWriter writer = Mockito.mock(RedisCacheWriter.class);
+        CountDownLatch readerInRedis = new CountDownLatch(1);
+        CountDownLatch releaseReader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        List<Future<Object>> reader = new ArrayList<>();
+        JavafreeMultiLevelCache[] cache = new JavafreeMultiLevelCache[1];
+        // 本地写入已记录失效版本号、尚未写入条目时，读取线程取得版本号并开始读取 Redis 中的旧值
+        Expiry<Object, Object> pauseNewValue =
+                new Expiry<Object, Object>() {
+                    @Override
+                    public long expireAfterCreate(Object key, Object value, long currentTime) {
+                        if ("new".equals(value)) {
+                            reader.add(executor.submit(() -> cache[0].get("racedKey").get()));
+                            try {
+                                readerInRedis.await(5, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                        return Long.MAX_VALUE;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+                        return Long.MAX_VALUE;
+                    }
+
+                    @Override
+                    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                };
+        cache[0] =
+                new JavafreeMultiLevelCache(
+                        "loadingTest",
+                        new MultiLevelCacheProperties(),
+                        writer,
+                        Mockito.mock(RedisTemplate.class),
+                        Caffeine.newBuilder().expireAfter(pauseNewValue).build(),
+                        CircuitBreaker.ofDefaults("loadingTest"));
+        Mockito.when(writer.get(ArgumentMatchers.anyString(), ArgumentMatchers.any()))
+                .thenAnswer(
+                        invocation -> {
+                            readerInRedis.countDown();
+                            releaseReader.await(5, TimeUnit.SECONDS);
+                            return "\"old\"".getBytes(StandardCharsets.UTF_8);
+                        });
+
+        try {
+            cache[0].put("racedKey", "new");
+            releaseReader.countDown();
+
+            Assertions.assertEquals("old", reader.get(0).get(5, TimeUnit.SECONDS), "Caller still gets the value it read");
+            Assertions.assertEquals(
+                    "new", cache[0].getLocalCache().getIfPresent("racedKey"), "Value read from Redis must not overwrite local write");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<String> runConcurrently(IndexedCall call) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                final int index = i;
+                futures.add(
+                        executor.submit(
+                                () -> {
+                                    startGate.await();
+                                    return call.call(index);
+                                }));
+            }
+            startGate.countDown();
+
+            List<String> results = new ArrayList<>();
+            for (Future<String> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    interface IndexedCall {
+        String call(int index) throws Exception;
+    }
+}
@@ -1,6 +1,8 @@
 package com.javafree.cloud.cache.support;
 
 import com.javafree.cloud.cache.config.JavafreeMultilevelCacheAutoConfiguration;
+import com.javafree.cloud.cache.enums.ExpireMode;
+import com.javafree.cloud.cache.properties.CacheOverrideProperties;
 import com.javafree.cloud.cache.properties.MultiLevelCacheProperties;
 import com.javafree.cloud.cache.support.JavafreeMultiLevelCacheManager.RandomizedLocalExpiryOnWrite;
 import java.time.Duration;
@@ -14,6 +16,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
 import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -92,4 +95,79 @@ class JavafreeMultiLevelCacheManagerTest {
                     "Too big expiry jitter must throw an exception");
         }
     }
+
+    @Nested
+    class CacheOverridesTest {
+        @Test
+        void cacheSettingsOverrideGlobalSettings() {
+            MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+            CacheOverrideProperties price = new CacheOverrideProperties();
+            price.setTimeToLive(Duration.ofSeconds(5));
+            price.setAllowNullValues(false);
+            price.getLocal().setMaxSize(10);
+            price.getLocal().setExpireMode(ExpireMode.WRITE);
+            properties.getCaches().put("price", price);
+
+            MultiLevelCacheProperties priceProperties = properties.forCache("price");
+            Assertions.assertEquals(Duration.ofSeconds(5), priceProperties.getTimeToLive());
+            Assertions.assertEquals(10, priceProperties.getLocal().getMaxSize());
+            Assertions.assertEquals(ExpireMode.WRITE, priceProperties.getLocal().getExpireMode());
+            Assertions.assertEquals(
+                    properties.getLocal().getInitialCapacity(),
+                    priceProperties.getLocal().getInitialCapacity(),
+                    "Settings not overridden must be inherited");
+            Assertions.assertEquals(4000, properties.getLocal().getMaxSize(), "Global settings must not change");
+            Assertions.assertSame(properties, properties.forCache("catalog"));
+
+            RedisCacheConfiguration priceConfiguration = properties.toRedisCacheConfiguration("price");
+            Assertions.assertEquals(Duration.ofSeconds(5), priceConfiguration.getTtl());
+            Assertions.assertFalse(priceConfiguration.getAllowCacheNullValues());
+            RedisCacheConfiguration catalogConfiguration = properties.toRedisCacheConfiguration("catalog");
+            Assertions.assertEquals(Duration.ofHours(1), catalogConfiguration.getTtl());
+            Assertions.assertTrue(catalogConfiguration.getAllowCacheNullValues());
+        }
+
+        @Test
+        void featureSettingsOverrideGlobalSettings() {
+            MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+            properties.getRefresh().setStaleGracePeriod(Duration.ofSeconds(10));
+            CacheOverrideProperties price = new CacheOverrideProperties();
+            price.getRefresh().setEarlyEnabled(true);
+            price.getDistributedLock().setEnabled(true);
+            price.getDistributedLock().setWaitTime(Duration.ofMillis(500));
+            price.getOffHeap().setEnabled(true);
+            price.getHotKey().setEnabled(true);
+            price.getHotKey().setThreshold(10);
+            properties.getCaches().put("price", price);
+
+            MultiLevelCacheProperties priceProperties = properties.forCache("price");
+            Assertions.assertTrue(priceProperties.getRefresh().isEarlyEnabled());
+            Assertions.assertEquals(
+                    Duration.ofSeconds(10),
+                    priceProperties.getRefresh().getStaleGracePeriod(),
+                    "Settings not overridden must be inherited");
+            Assertions.assertTrue(priceProperties.getDistributedLock().isEnabled());
+            Assertions.assertEquals(Duration.ofMillis(500), priceProperties.getDistributedLock().getWaitTime());
+            Assertions.assertTrue(priceProperties.getOffHeap().isEnabled());
+            Assertions.assertTrue(priceProperties.getHotKey().isEnabled());
+            Assertions.assertEquals(10, priceProperties.getHotKey().getThreshold());
+
+            Assertions.assertFalse(properties.getRefresh().isEarlyEnabled(), "Global settings must not change");
+            Assertions.assertFalse(properties.getDistributedLock().isEnabled());
+            Assertions.assertFalse(properties.getOffHeap().isEnabled());
+            Assertions.assertFalse(properties.getHotKey().isEnabled());
+
+            JavafreeMultiLevelCacheManager cacheManager = JavafreeMultiLevelCacheLoadingTest.newManager(properties);
+            try {
+                JavafreeMultiLevelCache priceCache = (JavafreeMultiLevelCache) cacheManager.getCache("price");
+                JavafreeMultiLevelCache catalogCache = (JavafreeMultiLevelCache) cacheManager.getCache("catalog");
+                Assertions.assertNotNull(priceCache.getOffHeapStore());
+                Assertions.assertNotNull(priceCache.getHotKeyTracker());
+                Assertions.assertNull(catalogCache.getOffHeapStore());
+                Assertions.assertNull(catalogCache.getHotKeyTracker());
+            } finally {
+                cacheManager.destroy();
+            }
+        }
+    }
 }
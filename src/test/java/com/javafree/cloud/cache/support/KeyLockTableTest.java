@@ -0,0 +1,54 @@
+package com.javafree.cloud.cache.support;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class KeyLockTableTest {
+
+    @Test
+    void locksAreRemovedAfterLastRelease() {
+        KeyLockTable locks = new KeyLockTable();
+
+        KeyLockTable.KeyLock lock = locks.lock("key");
+        KeyLockTable.KeyLock reentered = locks.lock("key");
+        Assertions.assertSame(lock, reentered, "Same key must map to the same lock");
+        Assertions.assertEquals(1, locks.size());
+
+        reentered.unlock();
+        Assertions.assertEquals(1, locks.size(), "Held lock must stay in the table");
+        lock.unlock();
+        Assertions.assertEquals(0, locks.size(), "Released lock must be removed");
+    }
+
+    @Test
+    void waitingThreadSharesTheHeldLock() throws InterruptedException {
+        KeyLockTable locks = new KeyLockTable();
+        KeyLockTable.KeyLock lock = locks.lock("key");
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean acquired = new AtomicBoolean();
+
+        Thread waiter =
+                new Thread(
+                        () -> {
+                            started.countDown();
+                            KeyLockTable.KeyLock other = locks.lock("key");
+                            try {
+                                acquired.set(true);
+                            } finally {
+                                other.unlock();
+                            }
+                        });
+        waiter.start();
+        Assertions.assertTrue(started.await(1, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        Assertions.assertFalse(acquired.get(), "Waiter must block while the lock is held");
+
+        lock.unlock();
+        waiter.join(TimeUnit.SECONDS.toMillis(1));
+        Assertions.assertTrue(acquired.get());
+        Assertions.assertEquals(0, locks.size());
+    }
+}
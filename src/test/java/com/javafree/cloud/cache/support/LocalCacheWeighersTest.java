@@ -0,0 +1,102 @@
+package com.javafree.cloud.cache.support;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.javafree.cloud.cache.enums.SerializerType;
+import com.javafree.cloud.cache.enums.WeigherType;
+import com.javafree.cloud.cache.properties.CacheOverrideProperties;
+import com.javafree.cloud.cache.properties.KryoProperties;
+import com.javafree.cloud.cache.properties.MultiLevelCacheProperties;
+import com.javafree.cloud.cache.serializer.RedisValueSerializers;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.unit.DataSize;
+
+class LocalCacheWeighersTest {
+
+    @Test
+    void estimatedWeightGrowsWithValueSize() {
+        Weigher<Object, Object> weigher = LocalCacheWeighers.estimated();
+        List<Item> small = items(1);
+        List<Item> large = items(1000);
+
+        int smallWeight = weigher.weigh("key", small);
+        int largeWeight = weigher.weigh("key", large);
+
+        Assertions.assertTrue(smallWeight > 0, "Weight must be positive");
+        Assertions.assertTrue(largeWeight > 500 * smallWeight, "Weight must grow with the object graph");
+        Assertions.assertTrue(weigher.weigh("key", NullValue.INSTANCE) > 0, "Null value must have a weight");
+    }
+
+    @Test
+    void serializedWeightIsSerializedSize() {
+        RedisSerializer<Object> serializer = RedisValueSerializers.create(SerializerType.JSON, new KryoProperties());
+        Weigher<Object, Object> weigher = LocalCacheWeighers.serialized(serializer);
+        List<Item> value = items(100);
+
+        int weight = weigher.weigh("key", value);
+
+        Assertions.assertTrue(weight >= serializer.serialize(value).length, "Weight must include serialized bytes");
+        Assertions.assertTrue(weight < serializer.serialize(value).length + 100, "Key must add only a small weight");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void managerBuildsWeightedLocalCache() {
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        CacheOverrideProperties weighted = new CacheOverrideProperties();
+        weighted.getLocal().setMaxWeight(DataSize.ofMegabytes(1));
+        weighted.getLocal().setWeigher(WeigherType.SERIALIZED);
+        properties.getCaches().put("weighted", weighted);
+        RedisTemplate<Object, Object> redisTemplate = Mockito.mock(RedisTemplate.class);
+        Mockito.when(redisTemplate.getConnectionFactory()).thenReturn(Mockito.mock(RedisConnectionFactory.class));
+        ObjectProvider<CacheProperties> highLevelProperties = Mockito.mock(ObjectProvider.class);
+
+        JavafreeMultiLevelCacheManager cacheManager =
+                new JavafreeMultiLevelCacheManager(
+                        highLevelProperties, properties, redisTemplate, CircuitBreaker.ofDefaults("weightTest"));
+        try {
+            Policy.Eviction<Object, Object> weightedEviction =
+                    ((JavafreeMultiLevelCache) cacheManager.getCache("weighted"))
+                            .getLocalCache().policy().eviction().get();
+            Policy.Eviction<Object, Object> countEviction =
+                    ((JavafreeMultiLevelCache) cacheManager.getCache("counted"))
+                            .getLocalCache().policy().eviction().get();
+
+            Assertions.assertTrue(weightedEviction.isWeighted(), "Cache with max weight must be weighted");
+            Assertions.assertEquals(DataSize.ofMegabytes(1).toBytes(), weightedEviction.getMaximum());
+            Assertions.assertFalse(countEviction.isWeighted(), "Cache without max weight must be bounded by count");
+        } finally {
+            cacheManager.destroy();
+        }
+    }
+
+    private static List<Item> items(int count) {
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) items.add(new Item("item-" + i, i));
+        return items;
+    }
+
+    static class Item {
+        private String name;
+        private long count;
+
+        Item() {
+        }
+
+        Item(String name, long count) {
+            this.name = name;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.javafree.cloud.cache.support;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.javafree.cloud.cache.enums.ExpireMode;
+import com.javafree.cloud.cache.properties.MultiLevelCacheProperties;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.core.RedisTemplate;
+
+class OffHeapStoreTest {
+
+    @Test
+    void valuesSpanningBlocksRoundTrip() {
+        OffHeapStore store = new OffHeapStore(4096, 64, TimeUnit.MINUTES.toNanos(1));
+        byte[] value = bytes(1000, (byte) 7);
+
+        Assertions.assertTrue(store.put("key", value));
+        Assertions.assertArrayEquals(value, store.get("key"));
+        Assertions.assertEquals(1024, store.usedBytes(), "Value must occupy whole blocks");
+        Assertions.assertArrayEquals(new byte[0], putAndGet(store, "empty", new byte[0]));
+
+        store.remove("key");
+        Assertions.assertNull(store.get("key"));
+        Assertions.assertEquals(0, store.usedBytes(), "Removed value must release its blocks");
+        Assertions.assertEquals(2, store.hitCount());
+        Assertions.assertEquals(1, store.missCount());
+    }
+
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted() {
+        OffHeapStore store = new OffHeapStore(1024, 256, TimeUnit.MINUTES.toNanos(1));
+        store.put("key1", bytes(256, (byte) 1));
+        store.put("key2", bytes(256, (byte) 2));
+        store.put("key3", bytes(256, (byte) 3));
+        store.put("key4", bytes(256, (byte) 4));
+        store.get("key1");
+
+        store.put("key5", bytes(512, (byte) 5));
+
+        Assertions.assertNotNull(store.get("key1"), "Recently used entry must be kept");
+        Assertions.assertNull(store.get("key2"), "Least recently used entry must be evicted");
+        Assertions.assertNull(store.get("key3"), "Entries must be evicted until the value fits");
+        Assertions.assertArrayEquals(bytes(512, (byte) 5), store.get("key5"));
+        Assertions.assertEquals(2, store.evictionCount());
+        Assertions.assertFalse(store.put("tooLarge", bytes(2048, (byte) 6)), "Value larger than capacity must be rejected");
+    }
+
+    @Test
+    void expiredEntriesAreNotReturned() {
+        OffHeapStore store = new OffHeapStore(1024, 256, 0);
+        store.put("key", bytes(10, (byte) 1));
+
+        Assertions.assertNull(store.get("key"), "Expired entry must not be returned");
+        Assertions.assertEquals(0, store.size());
+    }
+
+    @Test
+    void stripedStoreHandlesConcurrentWriters() throws Exception {
+        OffHeapStore store = new OffHeapStore(1024 * 1024, 64, TimeUnit.MINUTES.toNanos(1));
+        Assertions.assertEquals(1024 * 1024, store.capacity(), "Stripes must share the whole capacity");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int thread = t;
+                writers.add(
+                        executor.submit(
+                                () -> {
+                                    for (int i = 0; i < 500; i++) {
+                                        String key = thread + ":" + i;
+                                        store.put(key, bytes(100, (byte) i));
+                                        Assertions.assertArrayEquals(bytes(100, (byte) i), store.get(key));
+                                    }
+                                }));
+            }
+            for (Future<?> writer : writers) writer.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(4000, store.size());
+        Assertions.assertEquals(4000L * 128, store.usedBytes(), "Each value must occupy two blocks");
+        Assertions.assertEquals(4000, store.hitCount());
+        store.clear();
+        Assertions.assertEquals(0, store.usedBytes());
+        Assertions.assertArrayEquals(bytes(1000, (byte) 9), putAndGet(store, "reused", bytes(1000, (byte) 9)), "Freed blocks must be reused");
+        Assertions.assertFalse(store.put("tooLarge", bytes(1024 * 1024 / 16 + 1, (byte) 1)), "Value larger than a stripe must be rejected");
+    }
+
+    @Test
+    void cacheReadsOffHeapBeforeRedis() {
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        properties.getOffHeap().setEnabled(true);
+        RedisCacheWriter writer = Mockito.mock(RedisCacheWriter.class);
+        JavafreeMultiLevelCache cache =
+                new JavafreeMultiLevelCache(
+                        "offHeapTest",
+                        properties,
+                        writer,
+                        Mockito.mock(RedisTemplate.class),
+                        Caffeine.newBuilder().build(),
+                        CircuitBreaker.ofDefaults("offHeapTest"));
+        Mockito.when(writer.get(ArgumentMatchers.eq("offHeapTest"), ArgumentMatchers.any()))
+                .thenReturn("\"value\"".getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertEquals("value", cache.get("key").get());
+        cache.getLocalCache().invalidateAll();
+        Assertions.assertEquals("value", cache.get("key").get(), "Value must be read from off-heap store");
+        Mockito.verify(writer, Mockito.times(1)).get(ArgumentMatchers.any(), ArgumentMatchers.any());
+        Assertions.assertEquals(1, cache.getOffHeapStore().hitCount());
+
+        cache.put("key", "newValue");
+        Assertions.assertEquals(0, cache.getOffHeapStore().size(), "Put must remove the stale off-heap value");
+    }
+
+    @Test
+    void offHeapEntriesDoNotOutliveCacheTimeToLive() throws InterruptedException {
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        properties.getOffHeap().setEnabled(true);
+        properties.setTimeToLive(Duration.ofMillis(400));
+        RedisCacheWriter writer = Mockito.mock(RedisCacheWriter.class);
+        JavafreeMultiLevelCache cache =
+                new JavafreeMultiLevelCache(
+                        "offHeapTtlTest",
+                        properties,
+                        writer,
+                        Mockito.mock(RedisTemplate.class),
+                        Caffeine.newBuilder().build(),
+                        CircuitBreaker.ofDefaults("offHeapTtlTest"));
+        Mockito.when(writer.get(ArgumentMatchers.eq("offHeapTtlTest"), ArgumentMatchers.any()))
+                .thenReturn("\"value\"".getBytes(StandardCharsets.UTF_8));
+
+        Assertions.assertEquals("value", cache.get("key").get());
+        cache.getLocalCache().invalidateAll();
+        Thread.sleep(200);
+
+        Assertions.assertEquals("value", cache.get("key").get());
+        Mockito.verify(writer, Mockito.times(2)).get(ArgumentMatchers.any(), ArgumentMatchers.any());
+        Assertions.assertEquals(0, cache.getOffHeapStore().hitCount(), "Off-heap entry must expire with the local entry");
+    }
+
+    @Test
+    void offHeapTimeToLiveIsCappedByRedisAndLocalExpiry() {
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        properties.getOffHeap().setTimeToLive(Duration.ofMinutes(30));
+        properties.setTimeToLive(Duration.ofMinutes(40));
+
+        Assertions.assertEquals(
+                Duration.ofMinutes(10),
+                JavafreeMultiLevelCache.offHeapTimeToLive(properties, Duration.ofMinutes(40)),
+                "RANDOM mode must cap at the shortest local expiry");
+
+        properties.getLocal().setExpireMode(ExpireMode.WRITE);
+        Assertions.assertEquals(
+                Duration.ofMinutes(20), JavafreeMultiLevelCache.offHeapTimeToLive(properties, Duration.ofMinutes(20)));
+        Assertions.assertEquals(
+                Duration.ofMinutes(30), JavafreeMultiLevelCache.offHeapTimeToLive(properties, Duration.ZERO));
+    }
+
+    private static byte[] putAndGet(OffHeapStore store, String key, byte[] value) {
+        store.put(key, value);
+        return store.get(key);
+    }
+
+    private static byte[] bytes(int length, byte value) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, value);
+        return bytes;
+    }
+}
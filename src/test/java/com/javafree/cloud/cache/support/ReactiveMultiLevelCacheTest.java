@@ -0,0 +1,184 @@
+package com.javafree.cloud.cache.support;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.javafree.cloud.cache.config.JavafreeMultilevelCacheAutoConfiguration;
+import com.javafree.cloud.cache.enums.ClearMode;
+import com.javafree.cloud.cache.properties.MultiLevelCacheProperties;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+
+/**
+ * 需要本地 Redis（application-test.yaml 中的地址）
+ */
+@ActiveProfiles("test")
+@SpringBootTest(
+        classes = {
+                JavafreeMultilevelCacheAutoConfiguration.class,
+                RedisAutoConfiguration.class,
+                CacheAutoConfiguration.class
+        })
+@ExtendWith(SpringExtension.class)
+class ReactiveMultiLevelCacheTest {
+
+    @Autowired JavafreeMultiLevelCacheManager cacheManager;
+
+    @Test
+    void loadedValueIsStoredInBothLevels() {
+        ReactiveMultiLevelCache cache = cacheManager.getReactiveCache("reactiveLoadTest");
+        Assertions.assertNotNull(cache);
+        cache.evict("key").block();
+        AtomicInteger loads = new AtomicInteger();
+        Mono<String> loader = Mono.fromCallable(() -> "value" + loads.incrementAndGet());
+
+        Assertions.assertEquals("value1", cache.get("key", loader).block());
+        Assertions.assertEquals("value1", cache.getCache().getLocalCache().getIfPresent("key"));
+        Assertions.assertEquals("value1", cache.getCache().nativeGet("key"), "Loaded value must be written to Redis");
+        Assertions.assertEquals("value1", cache.get("key", loader).block());
+        Assertions.assertEquals(1, loads.get(), "Local hit must not subscribe the loader");
+
+        cache.getCache().getLocalCache().invalidate("key");
+        Assertions.assertEquals("value1", cache.get("key").block(), "Redis value must be read on local miss");
+        Assertions.assertEquals("value1", cache.getCache().getLocalCache().getIfPresent("key"));
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() {
+        ReactiveMultiLevelCache cache = cacheManager.getReactiveCache("reactiveSharedLoadTest");
+        Assertions.assertNotNull(cache);
+        cache.evict("key").block();
+        AtomicInteger loads = new AtomicInteger();
+        Mono<String> loader =
+                Mono.delay(Duration.ofMillis(200)).map(tick -> "value" + loads.incrementAndGet());
+
+        Flux.range(0, 8)
+                .flatMap(i -> cache.get("key", loader))
+                .collectList()
+                .block()
+                .forEach(value -> Assertions.assertEquals("value1", value));
+        Assertions.assertEquals(1, loads.get(), "Concurrent misses on one key must share one load");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void readWithoutLoaderDoesNotAbsorbConcurrentLoad() {
+        JavafreeMultiLevelCache syncCache = (JavafreeMultiLevelCache) cacheManager.getCache("reactiveReadAndLoadTest");
+        Assertions.assertNotNull(syncCache);
+        syncCache.evict("key");
+        // Redis 读取较慢且没有该键
+        ReactiveRedisTemplate<byte[], byte[]> redisTemplate = Mockito.mock(ReactiveRedisTemplate.class);
+        ReactiveValueOperations<byte[], byte[]> valueOperations = Mockito.mock(ReactiveValueOperations.class);
+        Mockito.when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        Mockito.when(valueOperations.get(ArgumentMatchers.any()))
+                .thenReturn(Mono.delay(Duration.ofMillis(300)).then(Mono.empty()));
+        Mockito.when(
+                        valueOperations.set(
+                                ArgumentMatchers.any(), ArgumentMatchers.any(), ArgumentMatchers.any(Duration.class)))
+                .thenReturn(Mono.just(true));
+        ReactiveMultiLevelCache cache = new ReactiveMultiLevelCache(syncCache, redisTemplate);
+        AtomicInteger loads = new AtomicInteger();
+        Mono<String> loader = Mono.fromCallable(() -> "value" + loads.incrementAndGet());
+
+        Tuple2<Object, String> results =
+                Mono.zip(
+                                cache.get("key").defaultIfEmpty("missing"),
+                                Mono.delay(Duration.ofMillis(50)).then(cache.get("key", loader)))
+                        .block();
+        Assertions.assertNotNull(results, "Load must not join the read without loader");
+        Assertions.assertEquals("missing", results.getT1());
+        Assertions.assertEquals("value1", results.getT2(), "Loader must be subscribed while a read is in flight");
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertEquals("value1", syncCache.getLocalCache().getIfPresent("key"));
+        syncCache.evict("key");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generationIsReadWithoutBlockingTemplate() {
+        MultiLevelCacheProperties properties = new MultiLevelCacheProperties();
+        properties.getClear().setMode(ClearMode.GENERATION);
+        RedisTemplate<Object, Object> blockingTemplate = Mockito.mock(RedisTemplate.class);
+        JavafreeMultiLevelCache syncCache =
+                new JavafreeMultiLevelCache(
+                        "reactiveGenerationTest",
+                        properties,
+                        Mockito.mock(RedisCacheWriter.class),
+                        blockingTemplate,
+                        Caffeine.newBuilder().build(),
+                        CircuitBreaker.ofDefaults("reactiveGenerationTest"));
+        ReactiveRedisTemplate<byte[], byte[]> redisTemplate = Mockito.mock(ReactiveRedisTemplate.class);
+        ReactiveValueOperations<byte[], byte[]> valueOperations = Mockito.mock(ReactiveValueOperations.class);
+        Mockito.when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        Mockito.when(valueOperations.get(ArgumentMatchers.any()))
+                .thenAnswer(
+                        invocation -> {
+                            String rawKey = new String((byte[]) invocation.getArgument(0), StandardCharsets.UTF_8);
+                            if (rawKey.endsWith("#generation")) return Mono.just("7".getBytes(StandardCharsets.UTF_8));
+                            if (rawKey.endsWith("g7:key")) return Mono.just("\"value\"".getBytes(StandardCharsets.UTF_8));
+                            return Mono.empty();
+                        });
+        ReactiveMultiLevelCache cache = new ReactiveMultiLevelCache(syncCache, redisTemplate);
+
+        Assertions.assertEquals("value", cache.get("key").block(), "Key must use the generation read reactively");
+        Assertions.assertNull(cache.get("other").block());
+        Mockito.verify(blockingTemplate, Mockito.never()).execute(ArgumentMatchers.any(RedisCallback.class));
+        Mockito.verify(valueOperations, Mockito.times(3)).get(ArgumentMatchers.any());
+    }
+
+    @Test
+    void getAllReadsLocalAndRedisValues() {
+        ReactiveMultiLevelCache cache = cacheManager.getReactiveCache("reactiveGetAllTest");
+        Assertions.assertNotNull(cache);
+        cache.evict("missing").block();
+        cache.put("local", "localValue").block();
+        cache.getCache().nativePut("remote", "remoteValue");
+
+        Map<String, String> entries =
+                cache.<String, String>getAll(Arrays.asList("local", "remote", "missing"))
+                        .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                        .block();
+        Assertions.assertNotNull(entries);
+        Assertions.assertEquals("localValue", entries.get("local"));
+        Assertions.assertEquals("remoteValue", entries.get("remote"));
+        Assertions.assertFalse(entries.containsKey("missing"), "Missing keys must not be emitted");
+        Assertions.assertEquals("remoteValue", cache.getCache().getLocalCache().getIfPresent("remote"));
+    }
+
+    @Test
+    void evictRemovesBothLevels() {
+        ReactiveMultiLevelCache cache = cacheManager.getReactiveCache("reactiveEvictTest");
+        Assertions.assertNotNull(cache);
+        cache.put("key", "value").block();
+        Assertions.assertEquals("value", cache.getCache().nativeGet("key"));
+
+        Mono<Void> evict = cache.evict("key");
+        Assertions.assertEquals("value", cache.getCache().getLocalCache().getIfPresent("key"), "Evict must be lazy");
+        evict.block();
+        Assertions.assertNull(cache.getCache().getLocalCache().getIfPresent("key"));
+        Assertions.assertNull(cache.getCache().nativeGet("key"));
+        Assertions.assertNull(cache.get("key").block());
+    }
+}
@@ -0,0 +1,68 @@
+package com.javafree.cloud.cache.support;
+
+import com.javafree.cloud.cache.properties.WriteCoalescingProperties;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RedisWriteCoalescerTest {
+
+    @Test
+    void latestOperationPerKeyIsFlushedAfterWindow() {
+        WriteCoalescingProperties properties = new WriteCoalescingProperties();
+        properties.setWindow(Duration.ofMillis(50));
+        List<Map<Object, Object>> batches = new CopyOnWriteArrayList<>();
+        RedisWriteCoalescer coalescer = new RedisWriteCoalescer(properties, batches::add);
+
+        coalescer.add("key1", "value1");
+        coalescer.add("key2", "value2");
+        coalescer.add("key1", "value3");
+
+        Assertions.assertEquals("value3", coalescer.pending("key1"), "Latest operation must be pending");
+        Awaitility.await().atMost(Duration.ofSeconds(5)).until(() -> !batches.isEmpty());
+
+        Assertions.assertEquals(1, batches.size(), "Operations must be flushed in a single batch");
+        Assertions.assertEquals(2, batches.get(0).size(), "Operations on one key must be coalesced");
+        Assertions.assertEquals("value3", batches.get(0).get("key1"), "Latest operation must win");
+        Assertions.assertNull(coalescer.pending("key1"), "Flushed operation must not be pending");
+    }
+
+    @Test
+    void singleKeyIsFlushedAlone() {
+        WriteCoalescingProperties properties = new WriteCoalescingProperties();
+        properties.setWindow(Duration.ofHours(1));
+        List<Map<Object, Object>> batches = new CopyOnWriteArrayList<>();
+        RedisWriteCoalescer coalescer = new RedisWriteCoalescer(properties, batches::add);
+
+        coalescer.add("key1", "value1");
+        coalescer.add("key2", "value2");
+        coalescer.flushKey("key1");
+        coalescer.flushKey("missing");
+
+        Assertions.assertEquals(1, batches.size(), "Only pending keys must be flushed");
+        Assertions.assertEquals(Collections.singletonMap("key1", "value1"), batches.get(0));
+        Assertions.assertNull(coalescer.pending("key1"), "Flushed operation must not be pending");
+        Assertions.assertEquals("value2", coalescer.pending("key2"), "Other keys must stay pending");
+    }
+
+    @Test
+    void fullBatchIsFlushedImmediately() {
+        WriteCoalescingProperties properties = new WriteCoalescingProperties();
+        properties.setWindow(Duration.ofHours(1));
+        properties.setMaxBatchSize(2);
+        List<Map<Object, Object>> batches = new CopyOnWriteArrayList<>();
+        RedisWriteCoalescer coalescer = new RedisWriteCoalescer(properties, batches::add);
+
+        coalescer.add("key1", "value1");
+        Assertions.assertTrue(batches.isEmpty(), "Batch must not be flushed before it is full");
+        coalescer.add("key2", "value2");
+
+        Assertions.assertEquals(1, batches.size(), "Full batch must be flushed by the writing thread");
+        Assertions.assertEquals(2, batches.get(0).size(), "Full batch must contain all operations");
+    }
+}
@@ -0,0 +1,31 @@
+package com.javafree.cloud.cache.support;
+
+import java.util.concurrent.locks.ReentrantLock;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class StripedLocksTest {
+
+    @Test
+    void stripeCountIsRoundedUpToPowerOfTwo() {
+        Assertions.assertEquals(1, new StripedLocks(1).size());
+        Assertions.assertEquals(4, new StripedLocks(3).size());
+        Assertions.assertEquals(64, new StripedLocks(64).size());
+        Assertions.assertEquals(128, new StripedLocks(65).size());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new StripedLocks(0));
+    }
+
+    @Test
+    void equalKeysShareTheSameLock() {
+        StripedLocks locks = new StripedLocks(16);
+
+        ReentrantLock lock = locks.lock(new String("key"));
+        try {
+            Assertions.assertTrue(lock.isHeldByCurrentThread());
+            Assertions.assertSame(lock, locks.stripeOf("key"));
+        } finally {
+            lock.unlock();
+        }
+        Assertions.assertFalse(lock.isLocked());
+    }
+}
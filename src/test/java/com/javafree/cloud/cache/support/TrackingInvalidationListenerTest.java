@@ -0,0 +1,58 @@
+package com.javafree.cloud.cache.support;
+
+import com.javafree.cloud.cache.config.JavafreeMultilevelCacheAutoConfiguration;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * 需要本地 Redis 6 以上（application-test.yaml 中的地址）
+ */
+@ActiveProfiles("test")
+@SpringBootTest(
+        classes = {
+                JavafreeMultilevelCacheAutoConfiguration.class,
+                RedisAutoConfiguration.class,
+                CacheAutoConfiguration.class
+        },
+        properties = "spring.cache.multilevel.invalidation.transport=tracking")
+@ExtendWith(SpringExtension.class)
+class TrackingInvalidationListenerTest {
+
+    @Autowired JavafreeMultiLevelCacheManager cacheManager;
+
+    @Autowired TrackingInvalidationListener trackingInvalidationListener;
+
+    @Test
+    void writesByOtherClientsInvalidateLocalCache() {
+        JavafreeMultiLevelCache cache = (JavafreeMultiLevelCache) cacheManager.getCache("trackingTest");
+        Assertions.assertNotNull(cache);
+
+        cache.put("key", "v1");
+        // 本节点自己的写入同样会收到推送
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(5))
+                .until(() -> cache.getLocalCache().getIfPresent("key") == null);
+        Assertions.assertEquals("v1", cache.get("key").get());
+        Assertions.assertEquals("v1", cache.getLocalCache().getIfPresent("key"));
+
+        // 其他节点直接写入 Redis，不发布删除通知
+        byte[] rawKey =
+                cache.getCacheConfiguration().getKeyPrefixFor("trackingTest").concat("key").getBytes(StandardCharsets.UTF_8);
+        cache.getNativeCache().put("trackingTest", rawKey, "\"v2\"".getBytes(StandardCharsets.UTF_8), Duration.ofSeconds(10));
+
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(5))
+                .until(() -> cache.getLocalCache().getIfPresent("key") == null);
+        Assertions.assertEquals("v2", cache.get("key").get());
+    }
+}